@@ -0,0 +1,136 @@
+/*
+ * File name: ModelBenchmark.java
+ * Author: Mostapha A
+ * Purpose: Measures the model and generation code at each board size
+ * Class list: ModelBenchmark.java
+ */
+
+package piccross;
+
+import java.awt.Font;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * ModelBenchmark class measures the code that makes and plays a board, from 5x5
+ * up to the largest custom size. Run with java -jar target/benchmarks.jar -rf
+ * json to get the results as JSON.<br>
+ * GameController.setupHints needs a GameView, which is a window and can not be
+ * made without a display, so hints measures the same work on its own: reading
+ * the hints of every line from the model and giving them to the hint areas
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameModel.java, GameController.java
+ * @since Java 16
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ModelBenchmark {
+	/** The board dimension */
+	@Param({ "5", "10", "25", "50", "100", "200" })
+	public int dimension;
+	/** A generated configuration of the dimension */
+	private String config;
+	/** A model with the configuration's board */
+	private GameModel model;
+	/** The model that generates new configurations */
+	private GameModel generator;
+	/** The hint areas above the grid */
+	private GameHints hintsTop;
+	/** The hint areas beside the grid */
+	private GameHints hintsSide;
+	/** The next cell to select */
+	private int cell;
+
+	/**
+	 * Generates the configuration and the models used by the benchmarks
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		generator = new GameModel();
+		generator.setDimension(dimension);
+		generator.generateString();
+		config = generator.getString();
+		model = new GameModel();
+		model.generateBoard(config);
+		Font font = new Font(Font.DIALOG, Font.PLAIN, 12);
+		hintsTop = new GameHints(true, 12, font);
+		hintsSide = new GameHints(false, 12, font);
+	}
+
+	/**
+	 * Generates a random solution with one answer
+	 *
+	 * @return The configuration string
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public String generateString() {
+		generator.generateString();
+		return generator.getString();
+	}
+
+	/**
+	 * Reads a board from its configuration and works out its hints
+	 *
+	 * @return The model
+	 */
+	@Benchmark
+	public GameModel generateBoard() {
+		model.generateBoard(config);
+		return model;
+	}
+
+	/**
+	 * Selects one cell, going through every cell in turn
+	 *
+	 * @return Whether the selection was correct
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public int selectButton() {
+		int column = cell % dimension;
+		int row = cell / dimension;
+		cell = (cell + 1) % (dimension * dimension);
+		return model.selectButton(column, row, (cell & 1) == 0);
+	}
+
+	/**
+	 * The work of GameController.setupHints, gets the hints of every line and
+	 * gives them to the hint areas
+	 *
+	 * @param blackhole Keeps the hints from being optimised away
+	 */
+	@Benchmark
+	public void setupHints(Blackhole blackhole) {
+		int[][] top = new int[dimension][];
+		int[][] side = new int[dimension][];
+		int i;
+		for (i = 0; i < dimension; i++) {
+			top[i] = model.getColumnHints(i);
+			side[i] = model.getRowHints(i);
+		}
+		hintsTop.setHints(top);
+		hintsSide.setHints(side);
+		blackhole.consume(top);
+		blackhole.consume(side);
+	}
+}
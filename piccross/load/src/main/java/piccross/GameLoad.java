@@ -0,0 +1,414 @@
+/*
+ * File name: GameLoad.java
+ * Author: Mostapha A
+ * Purpose: Puts load on a game server by acting as many clients
+ * Class list: GameLoad.java, Session
+ */
+
+package piccross;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * GameLoad class measures how much a GameServer can take. It runs many clients
+ * without a GUI, each on its own thread, and every client goes through what the
+ * real client does: it reads its id, then sends its name (P2), a configuration
+ * (P1), asks for the configuration back by its id (P4), sends a time and score
+ * with the board (P3), asks for the board's leaderboard (P6) and ends (P0).
+ * Clients start spread over the ramp up time and wait a random think time
+ * around the one given before each message, like a player would.<br>
+ * Each message waits for its reply and the time taken is recorded in a
+ * histogram for its protocol number. At the end the messages per second and the
+ * 50th, 99th and 99.9th percentiles of each protocol are written, and the full
+ * HdrHistogram percentile distributions can be written to .hgrm files
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java, GameClient.java
+ * @since Java 16
+ */
+public class GameLoad {
+	/** The names of the recorded steps, the connection and id then P0 to P6 */
+	private static final String[] STEPS = { "ID", "P0", "P1", "P2", "P3", "P4", "P5", "P6" };
+	/** The longest time a histogram can record, in microseconds */
+	private static final long LONGEST = TimeUnit.MINUTES.toMicros(10);
+	/** The time each step took, in microseconds */
+	private static final Histogram[] latency = new Histogram[STEPS.length];
+	/** The failed attempts at each step */
+	private static final LongAdder[] failures = new LongAdder[STEPS.length];
+	/** The server name */
+	private static String host = "localhost";
+	/** The server port */
+	private static int port = 1234;
+	/** The amount of clients */
+	private static int clients = 100;
+	/** The games each client plays before ending */
+	private static int games = 1;
+	/** Milliseconds over which the clients start */
+	private static long ramp = 0;
+	/** The average milliseconds a client waits before each message */
+	private static long think = 0;
+	/** The dimension of the configurations sent */
+	private static int dimension = 10;
+	/** The protocol version, 1 for text or 2 for binary */
+	private static int version = 1;
+	/** Milliseconds to wait for a connection or a reply before the step fails */
+	private static int timeout = 30000;
+	/** The folder to write .hgrm files to, null for none */
+	private static File output;
+	/** The configuration every client sends */
+	private static String config;
+	/** The hash of the configuration */
+	private static long hash;
+
+	/**
+	 * Not created, only has static methods
+	 */
+	private GameLoad() {
+	}
+
+	/**
+	 * Runs the clients and writes the results
+	 *
+	 * @param args [--host name] [--port number] [--clients n] [--games n]
+	 *             [--ramp seconds] [--think milliseconds] [--dimension n]
+	 *             [--protocol 1|2] [--timeout seconds] [--hgrm folder]
+	 * @throws InterruptedException If waiting for the clients is interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		if (!readOptions(args)) {
+			System.out.println("Usage: GameLoad [--host name] [--port number] [--clients n] [--games n]"
+					+ " [--ramp seconds] [--think milliseconds] [--dimension n] [--protocol 1|2] [--timeout seconds]"
+					+ " [--hgrm folder]");
+			System.exit(1);
+		}
+		int i;
+		for (i = 0; i < STEPS.length; i++) {
+			latency[i] = new ConcurrentHistogram(LONGEST, 3);
+			failures[i] = new LongAdder();
+		}
+		config = randomConfig(dimension);
+		hash = GameCodec.hash(GameCodec.decode(config));
+
+		System.out.println("Starting " + clients + " clients against " + host + ":" + port + " with protocol "
+				+ version + ", " + games + " games each, " + ramp + " ms ramp up, " + think + " ms think time");
+		ArrayList<Thread> running = new ArrayList<Thread>(clients);
+		long start = System.nanoTime();
+		for (i = 0; i < clients; i++) {
+			// spread the starts evenly over the ramp up
+			long due = start + TimeUnit.MILLISECONDS.toNanos(ramp) * i / clients;
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+			Thread client = new Thread(new Session(), "piccross-load-" + i);
+			client.setDaemon(true);
+			client.start();
+			running.add(client);
+		}
+		for (Thread client : running) {
+			client.join();
+		}
+		report(System.nanoTime() - start);
+	}
+
+	/**
+	 * Reads the command line options
+	 *
+	 * @param args The command line arguments
+	 * @return Whether every option was valid
+	 */
+	private static boolean readOptions(String[] args) {
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String value = i + 1 < args.length ? args[i + 1] : null;
+				switch (args[i]) {
+				case "--host":
+					host = value;
+					break;
+				case "--port":
+					port = Integer.parseInt(value);
+					break;
+				case "--clients":
+					clients = Integer.parseInt(value);
+					break;
+				case "--games":
+					games = Integer.parseInt(value);
+					break;
+				case "--ramp":
+					ramp = TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+					break;
+				case "--think":
+					think = Long.parseLong(value);
+					break;
+				case "--dimension":
+					dimension = Integer.parseInt(value);
+					break;
+				case "--protocol":
+					version = Integer.parseInt(value);
+					break;
+				case "--timeout":
+					timeout = (int) TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+					break;
+				case "--hgrm":
+					output = new File(value);
+					break;
+				default:
+					return false;
+				}
+				i++;
+			}
+		} catch (NumberFormatException | NullPointerException e) {
+			return false;
+		}
+		return host != null && port > 0 && port < 65536 && clients > 0 && games > 0 && ramp >= 0 && think >= 0
+				&& dimension > 0 && dimension <= GameBoard.MAX_DIMENSION && timeout > 0
+				&& (version == 1 || version == GameProtocol.VERSION);
+	}
+
+	/**
+	 * Makes a random configuration, the server does not check it has one answer
+	 *
+	 * @param size The dimension
+	 * @return The configuration in text form
+	 */
+	private static String randomConfig(int size) {
+		Random random = new Random();
+		GameBoard board = new GameBoard(size);
+		int row;
+		int column;
+		for (row = 0; row < size; row++) {
+			for (column = 0; column < size; column++) {
+				board.setSolution(column, row, random.nextBoolean());
+			}
+		}
+		return GameCodec.encode(board);
+	}
+
+	/**
+	 * Writes the throughput and percentiles of each step, and the percentile
+	 * distributions if a folder was given
+	 *
+	 * @param nanos The time the clients ran
+	 */
+	private static void report(long nanos) {
+		long messages = 0;
+		long failed = 0;
+		int i;
+		for (i = 0; i < STEPS.length; i++) {
+			messages += latency[i].getTotalCount();
+			failed += failures[i].sum();
+		}
+		double seconds = nanos / 1e9;
+		System.out.printf("%d messages in %.2f s, %.0f messages per second, %d failed%n", messages, seconds,
+				messages / seconds, failed);
+		System.out.printf("%-4s %9s %9s %10s %10s %10s %10s%n", "step", "count", "failed", "p50 us", "p99 us",
+				"p999 us", "max us");
+		for (i = 0; i < STEPS.length; i++) {
+			Histogram histogram = latency[i];
+			if (histogram.getTotalCount() == 0 && failures[i].sum() == 0) {
+				// a step the clients do not take, like P5
+				continue;
+			}
+			System.out.printf("%-4s %9d %9d %10d %10d %10d %10d%n", STEPS[i], histogram.getTotalCount(),
+					failures[i].sum(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+					histogram.getValueAtPercentile(99.9), histogram.getMaxValue());
+		}
+
+		if (output != null) {
+			output.mkdirs();
+			for (i = 0; i < STEPS.length; i++) {
+				if (latency[i].getTotalCount() == 0) {
+					continue;
+				}
+				File file = new File(output, STEPS[i] + ".hgrm");
+				try (PrintStream out = new PrintStream(file)) {
+					// in milliseconds like other HdrHistogram reports
+					latency[i].outputPercentileDistribution(out, 1000.0);
+				} catch (IOException e) {
+					System.out.println("Could not write " + file + ", " + e);
+				}
+			}
+			System.out.println("Percentile distributions written to " + output);
+		}
+	}
+
+	/**
+	 * One simulated client, plays its games on its own connection
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameLoad
+	 */
+	private static class Session implements Runnable {
+		/** The connection */
+		private Socket socket;
+		/** The client id the server gave us */
+		private String clientId;
+		/** Text replies */
+		private BufferedReader textInput;
+		/** Text messages */
+		private PrintStream textOutput;
+		/** Frame replies, null with the text protocol */
+		private DataInputStream frameInput;
+		/** Frame messages, null with the text protocol */
+		private DataOutputStream frameOutput;
+		/** The correlation number of the last frame */
+		private int correlation = 0;
+
+		/**
+		 * Connects, plays the games and ends, recording how long each step took
+		 */
+		@Override
+		public void run() {
+			try {
+				long start = System.nanoTime();
+				socket = new Socket();
+				socket.connect(new InetSocketAddress(host, port), timeout);
+				// a server that never answers fails the step instead of holding the client
+				socket.setSoTimeout(timeout);
+				textInput = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+				textOutput = new PrintStream(socket.getOutputStream());
+				clientId = textInput.readLine();
+				if (clientId == null) {
+					throw new IOException("Server closed the connection");
+				}
+				record(0, start);
+				if (version == GameProtocol.VERSION) {
+					// the same hello as GameChannel, not counted as a step
+					textOutput.println(GameProtocol.hello(clientId));
+					textOutput.flush();
+					if (!GameProtocol.helloReply(clientId).equals(textInput.readLine())) {
+						throw new IOException("Server does not know protocol " + version);
+					}
+					frameInput = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+					frameOutput = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				}
+
+				send(GameProtocol.P2, Thread.currentThread().getName());
+				int game;
+				for (game = 0; game < games; game++) {
+					send(GameProtocol.P1, config);
+					send(GameProtocol.P4, new GameProtocol.Fetch(hash, 0).toString());
+					send(GameProtocol.P3, new GameProtocol.Result(ThreadLocalRandom.current().nextInt(1, 600),
+							ThreadLocalRandom.current().nextInt(dimension * dimension + 1), dimension, hash).toString());
+					send(GameProtocol.P6, new GameProtocol.Query(dimension, hash, 10, false).toString());
+				}
+				send(GameProtocol.P0, "0");
+			} catch (IOException | RuntimeException e) {
+				// the step that failed was counted by send or is the connection
+				if (clientId == null) {
+					failures[0].increment();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				try {
+					if (socket != null) {
+						socket.close();
+					}
+				} catch (IOException e) {
+					// already closing
+				}
+			}
+		}
+
+		/**
+		 * Thinks, sends one message and waits for its reply
+		 *
+		 * @param protocol The protocol number
+		 * @param data     The data in the text protocol's form
+		 * @throws IOException          If the connection fails
+		 * @throws InterruptedException If interrupted while thinking
+		 */
+		private void send(int protocol, String data) throws IOException, InterruptedException {
+			if (think > 0) {
+				// a random wait around the think time
+				Thread.sleep(ThreadLocalRandom.current().nextLong(think * 2 + 1));
+			}
+			long start = System.nanoTime();
+			try {
+				if (frameOutput != null) {
+					GameProtocol.write(frameOutput, frame(protocol, data));
+					frameOutput.flush();
+					GameProtocol.Frame reply = GameProtocol.read(frameInput);
+					if (reply == null || reply.correlation() != correlation) {
+						throw new IOException("No reply to P" + protocol);
+					}
+				} else {
+					textOutput.println(clientId + "#P" + protocol + "#" + data);
+					textOutput.flush();
+					if (textInput.readLine() == null) {
+						throw new IOException("No reply to P" + protocol);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				failures[protocol + 1].increment();
+				throw e;
+			}
+			record(protocol + 1, start);
+		}
+
+		/**
+		 * Packs a message as a frame
+		 *
+		 * @param protocol The protocol number
+		 * @param data     The data in the text protocol's form
+		 * @return The frame
+		 */
+		private GameProtocol.Frame frame(int protocol, String data) {
+			byte[] payload;
+			switch (protocol) {
+			case GameProtocol.P1:
+				payload = GameProtocol.packConfig(data);
+				break;
+			case GameProtocol.P2:
+				payload = GameProtocol.packText(data);
+				break;
+			case GameProtocol.P3:
+				payload = GameProtocol.packResult(GameProtocol.Result.parse(data));
+				break;
+			case GameProtocol.P4:
+				payload = GameProtocol.packFetch(GameProtocol.Fetch.parse(data));
+				break;
+			case GameProtocol.P6:
+				payload = GameProtocol.packQuery(GameProtocol.Query.parse(data));
+				break;
+			default:
+				payload = new byte[0];
+				break;
+			}
+			return new GameProtocol.Frame(protocol, ++correlation, payload);
+		}
+
+		/**
+		 * Records the time a step took
+		 *
+		 * @param step  The step, 0 for the connection then the protocol number + 1
+		 * @param start When the step started, from System.nanoTime
+		 */
+		private static void record(int step, long start) {
+			long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+			latency[step].recordValue(Math.min(micros, LONGEST));
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * File name: ClientRecord.java
+ * Author: Mostapha A
+ * Purpose: Holds the information the server keeps about one client
+ * Class list: GameServer.java, ClientRecord.java
+ */
+
+package piccross;
+
+/**
+ * ClientRecord is the information the server keeps about one client. Records
+ * never change, an update replaces the client's record in the registry so a
+ * record read by another thread is always complete
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java
+ * @since Java 16
+ * @param id       The unique client number
+ * @param name     The client's name
+ * @param time     The time of the client's last finished game in seconds, 0 if
+ *                 none
+ * @param score    The score of the client's last finished game
+ * @param address  The client's address
+ * @param lastSeen When the client last sent a message, in milliseconds
+ */
+public record ClientRecord(int id, String name, int time, int score, String address, long lastSeen) {
+
+	/**
+	 * Creates the record of a client that just connected
+	 *
+	 * @param id      The unique client number
+	 * @param address The client's address
+	 * @return The new record
+	 */
+	public static ClientRecord connected(int id, String address) {
+		return new ClientRecord(id, "No name recorded", 0, 0, address, System.currentTimeMillis());
+	}
+
+	/**
+	 * Creates a copy with a new name
+	 *
+	 * @param newName The client's name
+	 * @return The updated record
+	 */
+	public ClientRecord withName(String newName) {
+		return new ClientRecord(id, newName, time, score, address, lastSeen);
+	}
+
+	/**
+	 * Creates a copy with a new time and score
+	 *
+	 * @param newTime  The time of the game in seconds
+	 * @param newScore The score of the game
+	 * @return The updated record
+	 */
+	public ClientRecord withResult(int newTime, int newScore) {
+		return new ClientRecord(id, name, newTime, newScore, address, lastSeen);
+	}
+
+	/**
+	 * Creates a copy that was last seen now
+	 *
+	 * @return The updated record
+	 */
+	public ClientRecord seen() {
+		return new ClientRecord(id, name, time, score, address, System.currentTimeMillis());
+	}
+}
@@ -8,10 +8,11 @@
 package piccross;
 
 import java.awt.EventQueue;
+import java.lang.management.ManagementFactory;
 
 /**
  * Piccross class that contains the main method for the program, displays the
- * splash screen then game
+ * splash screen while the game is made then the game
  * 
  * @author mos
  * @version 2.0
@@ -21,11 +22,21 @@ import java.awt.EventQueue;
 public class Game {
 	
 	/**
-	 * The main method that combines the other classes, displays a splash screen then the game
-	 * @param args default arguments
+	 * The main method that combines the other classes, displays a splash screen
+	 * while the game is made then the game
+	 * @param args --quiet to not write game messages to the console
 	 */
 	public static void main(String[] args) {
+		// when main started, to log how long the first game takes to show
+		long started = System.nanoTime();
+		// load the images while everything else is made
+		GameAssets.preload();
+
 		GameView gameView = new GameView();
+		// the history is still shown in the game
+		if (args.length > 0 && args[0].equals("--quiet")) {
+			gameView.setEcho(false);
+		}
 		GameModel gameModel = new GameModel();
 		GameController gameController = new GameController(gameView, gameModel);		
 		
@@ -33,16 +44,18 @@ public class Game {
 		GameView.GameSplash splashScreen = new GameView.GameSplash();
 
 		// call method to display
-		splashScreen.showSplashWindow();
+		EventQueue.invokeLater(splashScreen::showSplashWindow);
 
-		// display the game after the splash screen
-		EventQueue.invokeLater(new Runnable() {
-			@Override
-			public void run() {
-				gameController.startGame("");
+		// make the game while the splash screen shows, it closes once the game shows
+		gameController.startGameAsync().whenCompleteAsync((shown, error) -> {
+			splashScreen.closeSplashWindow();
+			if (error != null) {
+				error.printStackTrace();
+				return;
 			}
-		});
-		
+			long launched = ManagementFactory.getRuntimeMXBean().getStartTime();
+			gameView.echo("Game shown " + (System.currentTimeMillis() - launched) + " ms after launch, "
+					+ (System.nanoTime() - started) / 1000000 + " ms after main");
+		}, EventQueue::invokeLater);
 	}
 }
-
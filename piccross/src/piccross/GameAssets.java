@@ -0,0 +1,142 @@
+/*
+ * File name: GameAssets.java
+ * Author: Mostapha A
+ * Purpose: Loads the game's images once and shares them
+ * Class list: GameView.java, GameSplash.java, GameAssets.java
+ */
+
+package piccross;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.ImageIcon;
+
+/**
+ * GameAssets class loads the images in the images folder and hands out the
+ * same icon every time one is asked for, so an image is read and decoded once
+ * instead of each time a dialog or menu is made. Images are looked for on the
+ * class path first, then in the images folder of the working directory like
+ * before.<br>
+ * Small icons are kept for good. Large images, like the end of game pictures,
+ * are only held softly so the garbage collector can free them when memory runs
+ * low, they are loaded again the next time they are asked for.<br>
+ * Every image can be loaded in parallel while the splash screen shows so the
+ * first game and dialogs do not wait on the disk
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameView.java
+ * @since Java 16
+ */
+public class GameAssets {
+	/** The folder of the images, on the class path and in the working directory */
+	private static final String FOLDER = "images/";
+	/** The images of the game */
+	private static final String[] IMAGES = { "loadingscreen.gif", "logomini.png", "logocpl.png", "solution.gif",
+			"exit.gif", "colours.gif", "about.gif", "newgame.gif", "piccross.png", "gamepicwinner.png",
+			"gamepicend.png" };
+	/** Images with more pixels than this are held softly */
+	private static final int LARGE = 128 * 128;
+	/** The most threads loading at once */
+	private static final int LOADERS = 4;
+	/** The small icons, kept for good */
+	private static final ConcurrentHashMap<String, ImageIcon> small = new ConcurrentHashMap<String, ImageIcon>();
+	/** The large images, freed when memory runs low */
+	private static final ConcurrentHashMap<String, SoftReference<ImageIcon>> large = new ConcurrentHashMap<String, SoftReference<ImageIcon>>();
+
+	/**
+	 * Not created, only has static methods
+	 */
+	private GameAssets() {
+	}
+
+	/**
+	 * Gets an image, loading it the first time or after it was freed
+	 *
+	 * @param name The file name in the images folder
+	 * @return The shared icon, an empty icon if the image could not be found
+	 */
+	public static ImageIcon icon(String name) {
+		ImageIcon icon = small.get(name);
+		if (icon != null) {
+			return icon;
+		}
+		SoftReference<ImageIcon> held = large.get(name);
+		icon = held == null ? null : held.get();
+		if (icon != null) {
+			return icon;
+		}
+		return store(name, load(name));
+	}
+
+	/**
+	 * Loads every image on a few background threads, used while the splash
+	 * screen shows
+	 *
+	 * @return Completes when every image is loaded
+	 */
+	public static CompletableFuture<Void> preload() {
+		ExecutorService loaders = Executors.newFixedThreadPool(LOADERS, runnable -> {
+			Thread thread = new Thread(runnable, "piccross-assets");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ArrayList<CompletableFuture<ImageIcon>> loading = new ArrayList<CompletableFuture<ImageIcon>>();
+		for (String name : IMAGES) {
+			loading.add(CompletableFuture.supplyAsync(() -> icon(name), loaders));
+		}
+		CompletableFuture<Void> done = CompletableFuture.allOf(loading.toArray(new CompletableFuture<?>[0]));
+		// the threads end once the images are loaded
+		done.whenComplete((result, error) -> loaders.shutdown());
+		return done;
+	}
+
+	/**
+	 * Reads and decodes an image
+	 *
+	 * @param name The file name in the images folder
+	 * @return The icon, empty if the image could not be found
+	 */
+	private static ImageIcon load(String name) {
+		URL resource = GameAssets.class.getResource("/" + FOLDER + name);
+		if (resource == null) {
+			// Eclipse copies the images folder's files to the top of the class path
+			resource = GameAssets.class.getResource("/" + name);
+		}
+		if (resource != null) {
+			return new ImageIcon(resource);
+		}
+		File file = new File(FOLDER + name);
+		if (file.isFile()) {
+			return new ImageIcon(file.getPath());
+		}
+		System.out.println("Image not found " + name);
+		return new ImageIcon();
+	}
+
+	/**
+	 * Keeps a loaded icon, if another thread loaded the same image first its icon
+	 * is kept and returned instead so everyone shares one
+	 *
+	 * @param name The file name in the images folder
+	 * @param icon The loaded icon
+	 * @return The shared icon
+	 */
+	private static ImageIcon store(String name, ImageIcon icon) {
+		if (icon.getIconWidth() * icon.getIconHeight() <= LARGE) {
+			ImageIcon first = small.putIfAbsent(name, icon);
+			return first == null ? icon : first;
+		}
+		SoftReference<ImageIcon> kept = large.compute(name, (key, old) -> old != null && old.get() != null ? old
+				: new SoftReference<ImageIcon>(icon));
+		ImageIcon shared = kept.get();
+		return shared == null ? icon : shared;
+	}
+}
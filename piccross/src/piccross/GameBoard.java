@@ -0,0 +1,169 @@
+/*
+ * File name: GameBoard.java
+ * Author: Mostapha A
+ * Purpose: Stores the board solution and selections in packed primitive arrays
+ * Class list: GameModel.java, GameBoard.java
+ */
+
+package piccross;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * GameBoard class holds the solution and selection state of a board. The
+ * solution is stored one bit per cell with each row packed into longs, and the
+ * selection is stored two bits per cell. The cells in each selection state are
+ * also kept as a set, so everything marked, correct or wrong can be found
+ * without looking at every cell
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameModel.java
+ * @since Java 16
+ */
+public class GameBoard {
+	/** The largest board dimension, configurations from clients and files are held to it */
+	public static final int MAX_DIMENSION = 200;
+	/** Amount of selection cells packed into one long, 2 bits per cell */
+	private static final int CELLS_PER_WORD = 32;
+	/** The board dimension */
+	private final int dimension;
+	/** The amount of longs used by one solution row */
+	private final int rowWords;
+	/** The solution bits, row after row, a set bit is a true/1 cell */
+	private final long[] solution;
+	/** The selection bits, 2 per cell, stored as selection state + 1 */
+	private final long[] selection;
+	/** The cells in each selection state, 0 to 2, as row * dimension + column */
+	private final BitSet[] states = new BitSet[3];
+
+	/**
+	 * Creates an empty board, all cells false and unselected
+	 *
+	 * @param dimension The board dimension
+	 */
+	public GameBoard(int dimension) {
+		this.dimension = dimension;
+		rowWords = (dimension + 63) >>> 6;
+		solution = new long[dimension * rowWords];
+		selection = new long[(dimension * dimension + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = new BitSet(dimension * dimension);
+		}
+	}
+
+	/**
+	 * Gets the dimension of the board
+	 *
+	 * @return The dimension size
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Gets the amount of longs used to store one solution row
+	 *
+	 * @return The amount of longs per row
+	 */
+	public int getRowWords() {
+		return rowWords;
+	}
+
+	/**
+	 * Gets one long of a solution row, bit i is column (word * 64 + i)
+	 *
+	 * @param row  The row to read
+	 * @param word The index of the long within the row
+	 * @return The packed solution bits
+	 */
+	public long getSolutionWord(int row, int word) {
+		return solution[row * rowWords + word];
+	}
+
+	/**
+	 * Sets the solution of a cell
+	 *
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 * @param filled Whether the cell is true/1
+	 */
+	public void setSolution(int column, int row, boolean filled) {
+		int index = row * rowWords + (column >>> 6);
+		if (filled) {
+			solution[index] |= 1L << column;
+		} else {
+			solution[index] &= ~(1L << column);
+		}
+	}
+
+	/**
+	 * Gets the solution of a cell
+	 *
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 * @return 1 if the cell is true, otherwise 0
+	 */
+	public int getSolution(int column, int row) {
+		// shifts on a long only use the low 6 bits of the column
+		return (int) (solution[row * rowWords + (column >>> 6)] >>> column) & 1;
+	}
+
+	/**
+	 * Gets the selection state of a cell
+	 *
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 * @return -1 unselected, 0 correct mark, 1 correct selection, 2 incorrect
+	 */
+	public int getSelection(int column, int row) {
+		int cell = row * dimension + column;
+		int shift = (cell & (CELLS_PER_WORD - 1)) << 1;
+		return (int) ((selection[cell / CELLS_PER_WORD] >>> shift) & 3) - 1;
+	}
+
+	/**
+	 * Sets the selection state of a cell
+	 *
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 * @param state  -1 unselected, 0 correct mark, 1 correct selection, 2
+	 *               incorrect
+	 */
+	public void setSelection(int column, int row, int state) {
+		int cell = row * dimension + column;
+		int shift = (cell & (CELLS_PER_WORD - 1)) << 1;
+		int index = cell / CELLS_PER_WORD;
+		// move the cell from its old state's set to the new one
+		int old = (int) ((selection[index] >>> shift) & 3) - 1;
+		if (old >= 0) {
+			states[old].clear(cell);
+		}
+		if (state >= 0) {
+			states[state].set(cell);
+		}
+		selection[index] = (selection[index] & ~(3L << shift)) | ((long) (state + 1) << shift);
+	}
+
+	/**
+	 * Gets the cells in a selection state, the set is the board's own and must not
+	 * be changed
+	 *
+	 * @param state 0 correct mark, 1 correct selection, 2 incorrect
+	 * @return The cells as row * dimension + column
+	 */
+	public BitSet getCells(int state) {
+		return states[state];
+	}
+
+	/**
+	 * Sets every cell to unselected
+	 */
+	public void clearSelection() {
+		Arrays.fill(selection, 0L);
+		for (BitSet cells : states) {
+			cells.clear();
+		}
+	}
+}
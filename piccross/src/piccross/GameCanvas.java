@@ -0,0 +1,218 @@
+/*
+ * File name: GameCanvas.java
+ * Author: Mostapha A
+ * Purpose: Paints the playing grid as one component
+ * Class list: GameView.java, GameCanvas.java
+ */
+
+package piccross;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import javax.swing.JComponent;
+
+/**
+ * GameCanvas class paints the whole playing grid itself instead of using a
+ * button with its own border for each cell, so a large board is one component
+ * to lay out and paint. Each cell looks like the old buttons, a grey border
+ * that is thicker on the outside edge of the grid. A click on a cell sends the
+ * same action as the old buttons, column,row counting from 1, so the play
+ * handler does not change. Changing a cell only repaints that cell and painting
+ * only covers the cells inside the area being repainted, so in a scrolling
+ * viewport the paint time follows what is visible rather than the board size
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameView.java
+ * @since Java 16
+ */
+public class GameCanvas extends JComponent {
+	/** Serial version */
+	private static final long serialVersionUID = 1L;
+	/** The colour of the borders */
+	private static final Color BORDER = new Color(70, 70, 70);
+	/** The cell size from which borders are thinner so small cells stay visible */
+	private static final int THIN = 16;
+	/** The amount of cells in a row or column */
+	private final int dimension;
+	/** The width and height of a cell in pixels */
+	private int cellSize;
+	/** The border width between cells */
+	private int inner;
+	/** The border width on the outside edge of the grid */
+	private int outer;
+	/** The colour of each cell, row after row */
+	private final Color[] colours;
+
+	/**
+	 * Creates a grid with every cell white
+	 *
+	 * @param dimension The amount of cells in a row or column
+	 * @param cellSize  The width and height of a cell in pixels
+	 * @param handler   Told about a click on a cell with the action column,row
+	 */
+	public GameCanvas(int dimension, int cellSize, ActionListener handler) {
+		this.dimension = dimension;
+		colours = new Color[dimension * dimension];
+		Arrays.fill(colours, Color.WHITE);
+		setOpaque(true);
+		setCellSize(cellSize);
+
+		// a click is a press and release on the same cell, like a button
+		MouseAdapter mouse = new MouseAdapter() {
+			/** The cell pressed, -1 if none */
+			private int pressed = -1;
+
+			@Override
+			public void mousePressed(MouseEvent e) {
+				pressed = cellAt(e.getX(), e.getY());
+			}
+
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				int cell = cellAt(e.getX(), e.getY());
+				if (cell >= 0 && cell == pressed) {
+					String command = (cell % dimension + 1) + "," + (cell / dimension + 1);
+					handler.actionPerformed(
+							new ActionEvent(GameCanvas.this, ActionEvent.ACTION_PERFORMED, command));
+				}
+				pressed = -1;
+			}
+		};
+		addMouseListener(mouse);
+	}
+
+	/**
+	 * Changes the size of the cells, used to zoom
+	 *
+	 * @param newCellSize The width and height of a cell in pixels
+	 */
+	public void setCellSize(int newCellSize) {
+		cellSize = newCellSize;
+		inner = cellSize < THIN ? 1 : 2;
+		outer = inner * 2;
+		setPreferredSize(new Dimension(dimension * cellSize, dimension * cellSize));
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Gets the size of the cells
+	 *
+	 * @return The width and height of a cell in pixels
+	 */
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Changes a cell's colour and repaints only that cell
+	 *
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 * @param colour The colour to change to
+	 */
+	public void setCell(int column, int row, Color colour) {
+		colours[row * dimension + column] = colour;
+		repaint(column * cellSize, row * cellSize, cellSize, cellSize);
+	}
+
+	/**
+	 * Changes the colour of several cells and repaints them in one pass, the area
+	 * repainted is the smallest rectangle holding all of them
+	 *
+	 * @param cells  The cells as row * dimension + column
+	 * @param colour The colour to change to
+	 */
+	public void setCells(BitSet cells, Color colour) {
+		int firstColumn = dimension;
+		int firstRow = dimension;
+		int lastColumn = -1;
+		int lastRow = -1;
+		int cell;
+		for (cell = cells.nextSetBit(0); cell >= 0; cell = cells.nextSetBit(cell + 1)) {
+			colours[cell] = colour;
+			int column = cell % dimension;
+			int row = cell / dimension;
+			firstColumn = Math.min(firstColumn, column);
+			lastColumn = Math.max(lastColumn, column);
+			firstRow = Math.min(firstRow, row);
+			lastRow = Math.max(lastRow, row);
+		}
+		if (lastRow >= 0) {
+			repaint(firstColumn * cellSize, firstRow * cellSize, (lastColumn - firstColumn + 1) * cellSize,
+					(lastRow - firstRow + 1) * cellSize);
+		}
+	}
+
+	/**
+	 * Sets every cell white
+	 */
+	public void clear() {
+		Arrays.fill(colours, Color.WHITE);
+		repaint();
+	}
+
+	/**
+	 * Finds the cell under a point
+	 *
+	 * @param x The x position in pixels
+	 * @param y The y position in pixels
+	 * @return The cell as row * dimension + column, -1 if outside the grid
+	 */
+	private int cellAt(int x, int y) {
+		if (x < 0 || y < 0) {
+			return -1;
+		}
+		int column = x / cellSize;
+		int row = y / cellSize;
+		if (column >= dimension || row >= dimension) {
+			return -1;
+		}
+		return row * dimension + column;
+	}
+
+	/**
+	 * Paints the cells inside the area being repainted
+	 *
+	 * @param g The graphics to paint with
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		// only the cells the clip touches
+		int firstColumn = Math.max(0, clip.x / cellSize);
+		int firstRow = Math.max(0, clip.y / cellSize);
+		int lastColumn = Math.min(dimension - 1, (clip.x + clip.width - 1) / cellSize);
+		int lastRow = Math.min(dimension - 1, (clip.y + clip.height - 1) / cellSize);
+
+		// the borders first then each cell inside its border
+		g.setColor(BORDER);
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		int row;
+		int column;
+		for (row = firstRow; row <= lastRow; row++) {
+			int top = row == 0 ? outer : inner;
+			int bottom = row == dimension - 1 ? outer : inner;
+			for (column = firstColumn; column <= lastColumn; column++) {
+				int left = column == 0 ? outer : inner;
+				int right = column == dimension - 1 ? outer : inner;
+				g.setColor(colours[row * dimension + column]);
+				g.fillRect(column * cellSize + left, row * cellSize + top, cellSize - left - right,
+						cellSize - top - bottom);
+			}
+		}
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * File name: GameChannel.java
+ * Author: Mostapha A
+ * Purpose: Sends client messages to the server without waiting for replies
+ * Class list: GameChannel.java, Request
+ */
+
+package piccross;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * GameChannel class is the client's connection to the server. Sending a message
+ * returns a future at once, a writer thread sends every queued message together
+ * then flushes so several messages share one round trip, and a reader thread
+ * matches each reply to its request and completes the future. Callers never
+ * wait on the network, so the GUI stays responsive.<br>
+ * With the binary protocol replies are matched by correlation number. An older
+ * server only speaks text, it answers in the order messages were sent so replies
+ * are matched in order instead.<br>
+ * Futures are completed on the reader thread, callers that change the GUI must
+ * move back to the event thread
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameClient.java, GameProtocol.java
+ * @since Java 16
+ */
+public class GameChannel implements Closeable {
+	/** The most messages written before flushing */
+	private static final int BATCH = 64;
+	/** The socket to the server */
+	private final Socket socket;
+	/** The client id the server gave us */
+	private final String clientId;
+	/** Whether the server agreed to the binary protocol */
+	private final boolean binary;
+	/** Text replies from the server */
+	private final BufferedReader textInput;
+	/** Text messages to the server */
+	private final PrintStream textOutput;
+	/** Frames from the server, null for a text server */
+	private final DataInputStream frameInput;
+	/** Frames to the server, null for a text server */
+	private final DataOutputStream frameOutput;
+	/** Messages waiting to be written */
+	private final LinkedBlockingQueue<Request> outgoing = new LinkedBlockingQueue<Request>();
+	/** Messages written and waiting for a reply, in the order they were written */
+	private final ConcurrentLinkedQueue<Request> inFlight = new ConcurrentLinkedQueue<Request>();
+	/** The correlation number of the last message */
+	private int correlation = 0;
+	/** Why the channel stopped, null while it is open */
+	private volatile IOException failure;
+
+	/**
+	 * Connects to the server on a new thread so the caller does not wait
+	 *
+	 * @param host The server name
+	 * @param port The port number
+	 * @return The channel once the server has given us an id
+	 */
+	public static CompletableFuture<GameChannel> open(String host, int port) {
+		CompletableFuture<GameChannel> opened = new CompletableFuture<GameChannel>();
+		Thread connector = new Thread(() -> {
+			try {
+				opened.complete(new GameChannel(new Socket(host, port)));
+			} catch (IOException | RuntimeException e) {
+				opened.completeExceptionally(e);
+			}
+		}, "piccross-client-connect");
+		connector.setDaemon(true);
+		connector.start();
+		return opened;
+	}
+
+	/**
+	 * Receives the client id, asks for the binary protocol and starts the reader
+	 * and writer threads
+	 *
+	 * @param socket A connected socket
+	 * @throws IOException If the server does not answer
+	 */
+	private GameChannel(Socket socket) throws IOException {
+		this.socket = socket;
+		textInput = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+		textOutput = new PrintStream(socket.getOutputStream());
+		// get the client id from server
+		clientId = textInput.readLine();
+		if (clientId == null) {
+			socket.close();
+			throw new IOException("Server closed the connection");
+		}
+		// ask for the binary protocol, an older server replies like any unknown message
+		textOutput.println(GameProtocol.hello(clientId));
+		textOutput.flush();
+		binary = GameProtocol.helloReply(clientId).equals(textInput.readLine());
+		if (binary) {
+			frameInput = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			frameOutput = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		} else {
+			frameInput = null;
+			frameOutput = null;
+		}
+
+		Thread writer = new Thread(this::writeLoop, "piccross-client-writer");
+		writer.setDaemon(true);
+		writer.start();
+		Thread reader = new Thread(this::readLoop, "piccross-client-reader");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Gets the client id the server gave us
+	 *
+	 * @return The client id
+	 */
+	public String getClientId() {
+		return clientId;
+	}
+
+	/**
+	 * Gets the protocol version in use
+	 *
+	 * @return 2 for binary frames, 1 for text
+	 */
+	public int getVersion() {
+		return binary ? GameProtocol.VERSION : 1;
+	}
+
+	/**
+	 * Queues a message, never waits
+	 *
+	 * @param protocol The protocol number, P0 to P6
+	 * @param data     The data in the text protocol's form, 0, hash#id or
+	 *                 dimension#number for P4, time#score or
+	 *                 time#score#dimension#hash for P3, results separated by
+	 *                 semicolons for P5 which needs the binary protocol and
+	 *                 dimension#hash#count#score or time for P6
+	 * @return The information the server returned in the text protocol's form, the
+	 *         id the configuration is kept under for P1, a configuration or "0"
+	 *         for P4, the closing text for P0, the amount
+	 *         stored for P5, name,score,time entries separated by semicolons or
+	 *         "0" for P6 and "0" for the rest
+	 */
+	public CompletableFuture<String> send(int protocol, String data) {
+		Request request = new Request(protocol, data);
+		IOException stopped = failure;
+		if (stopped != null) {
+			request.reply.completeExceptionally(stopped);
+			return request.reply;
+		}
+		outgoing.add(request);
+		// the channel may have stopped while the message was queued
+		stopped = failure;
+		if (stopped != null) {
+			request.reply.completeExceptionally(stopped);
+		}
+		return request.reply;
+	}
+
+	/**
+	 * Closes the connection, failing every message still waiting
+	 */
+	public void close() {
+		fail(new IOException("Connection closed"));
+	}
+
+	/**
+	 * Writes queued messages until the connection fails, flushing once for each
+	 * group of messages that were waiting together
+	 */
+	private void writeLoop() {
+		ArrayList<Request> batch = new ArrayList<Request>(BATCH);
+		try {
+			while (failure == null) {
+				batch.add(outgoing.take());
+				if (failure != null) {
+					return;
+				}
+				outgoing.drainTo(batch, BATCH - 1);
+				for (Request request : batch) {
+					if (binary) {
+						GameProtocol.Frame frame;
+						request.correlation = ++correlation;
+						try {
+							frame = request.toFrame();
+						} catch (IllegalArgumentException e) {
+							// only this message is bad, the server never sees it
+							request.reply.completeExceptionally(e);
+							continue;
+						}
+						// in flight before it is written so the reply always finds it
+						inFlight.add(request);
+						GameProtocol.write(frameOutput, frame);
+					} else {
+						inFlight.add(request);
+						textOutput.println(clientId + "#P" + request.protocol + "#" + request.data);
+					}
+				}
+				if (binary) {
+					frameOutput.flush();
+				} else {
+					textOutput.flush();
+					if (textOutput.checkError()) {
+						throw new IOException("Connection to server lost");
+					}
+				}
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			fail(new IOException("Writer interrupted"));
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Reads replies until the connection fails and completes their requests
+	 */
+	private void readLoop() {
+		try {
+			for (;;) {
+				String reply;
+				Request request;
+				if (binary) {
+					GameProtocol.Frame frame = GameProtocol.read(frameInput);
+					if (frame == null) {
+						throw new IOException("Server closed the connection");
+					}
+					request = inFlight.poll();
+					if (request == null || request.correlation != frame.correlation()) {
+						throw new IOException("Unexpected reply " + frame.correlation());
+					}
+					reply = request.fromFrame(frame);
+				} else {
+					String line = textInput.readLine();
+					if (line == null) {
+						throw new IOException("Server closed the connection");
+					}
+					request = inFlight.poll();
+					if (request == null) {
+						throw new IOException("Unexpected reply " + line);
+					}
+					// id#returnInfo
+					int split = line.indexOf('#');
+					reply = split < 0 ? line : line.substring(split + 1);
+				}
+				request.reply.complete(reply);
+				if (request.protocol == GameProtocol.P0) {
+					fail(new IOException("Connection closed"));
+					return;
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			fail(e instanceof IOException ? (IOException) e : new IOException(e));
+		}
+	}
+
+	/**
+	 * Stops the channel once, closing the socket and failing every message not
+	 * yet answered
+	 *
+	 * @param cause Why the channel stopped
+	 */
+	private synchronized void fail(IOException cause) {
+		if (failure != null) {
+			return;
+		}
+		failure = cause;
+		try {
+			socket.close();
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+		Request request;
+		while ((request = inFlight.poll()) != null) {
+			request.reply.completeExceptionally(cause);
+		}
+		while ((request = outgoing.poll()) != null) {
+			request.reply.completeExceptionally(cause);
+		}
+		// wake the writer so it sees the failure
+		outgoing.add(new Request(GameProtocol.P0, "0"));
+	}
+
+	/**
+	 * One message and the future of its reply
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameChannel
+	 */
+	private static class Request {
+		/** The protocol number */
+		final int protocol;
+		/** The data in the text protocol's form */
+		final String data;
+		/** Completed with the reply */
+		final CompletableFuture<String> reply = new CompletableFuture<String>();
+		/** The correlation number the reply will echo */
+		int correlation;
+
+		/**
+		 * Creates a message
+		 *
+		 * @param protocol The protocol number
+		 * @param data     The data
+		 */
+		Request(int protocol, String data) {
+			this.protocol = protocol;
+			this.data = data;
+		}
+
+		/**
+		 * Packs the message as a frame
+		 *
+		 * @return The frame
+		 */
+		GameProtocol.Frame toFrame() {
+			byte[] payload;
+			switch (protocol) {
+			case GameProtocol.P1:
+				payload = GameProtocol.packConfig(data);
+				break;
+			case GameProtocol.P2:
+				payload = GameProtocol.packText(data);
+				break;
+			case GameProtocol.P3:
+				// time#score or time#score#dimension#hash
+				payload = GameProtocol.packResult(GameProtocol.Result.parse(data));
+				break;
+			case GameProtocol.P5:
+				payload = GameProtocol.packResults(Arrays.asList(data.split(";")));
+				break;
+			case GameProtocol.P4:
+				// 0, hash#id or dimension#number
+				payload = GameProtocol.packFetch(GameProtocol.Fetch.parse(data));
+				break;
+			case GameProtocol.P6:
+				// dimension#hash#count#score or dimension#hash#count#time
+				payload = GameProtocol.packQuery(GameProtocol.Query.parse(data));
+				break;
+			default:
+				payload = new byte[0];
+				break;
+			}
+			return new GameProtocol.Frame(protocol, correlation, payload);
+		}
+
+		/**
+		 * Unpacks the reply to this message into the text protocol's form
+		 *
+		 * @param frame The reply
+		 * @return The information returned
+		 */
+		String fromFrame(GameProtocol.Frame frame) {
+			switch (protocol) {
+			case GameProtocol.P0:
+				return GameProtocol.unpackText(frame.payload());
+			case GameProtocol.P1:
+				return GameProtocol.unpackId(frame.payload());
+			case GameProtocol.P4:
+				return GameProtocol.unpackConfig(frame.payload());
+			case GameProtocol.P5:
+				return Integer.toString(GameProtocol.unpackInts(frame.payload(), 1)[0]);
+			case GameProtocol.P6:
+				return GameProtocol.unpackLeaders(frame.payload());
+			default:
+				return "0";
+			}
+		}
+	}
+}
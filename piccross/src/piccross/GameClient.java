@@ -13,12 +13,12 @@ import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
-import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -29,6 +29,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 
 /**
  * GameClient class that sets up a piccross client
@@ -59,12 +60,10 @@ public class GameClient {
 	private static GameController gameController;
 	/** The server name */
 	private static String serverName;
-	/** The socket for connections */
-	private static Socket socket;
-	/** buffered reader for information from server */
-	private static BufferedReader serverInput;
-	/** print stream to send information to server */
-	private static PrintStream serverOutput;
+	/** The connection to the server, sends without waiting for replies */
+	private static GameChannel channel;
+	/** Keeps game results until the server has stored them */
+	private static GameOutbox outbox;
 	/** get the client id from server */
 	private static String clientId;
 	/** a counter for the play button for logic purposes */
@@ -121,6 +120,7 @@ public class GameClient {
 		JButton receiveGame = new JButton("Receive Game");
 		JButton sendData = new JButton("Send Data");
 		JButton play = new JButton("Play");
+		JButton leaders = new JButton("Leaders");
 
 		// add listeners
 		connect.addActionListener(buttonHandler);
@@ -131,6 +131,7 @@ public class GameClient {
 		receiveGame.addActionListener(buttonHandler);
 		sendData.addActionListener(buttonHandler);
 		play.addActionListener(buttonHandler);
+		leaders.addActionListener(buttonHandler);
 
 		// add option elements to 2 panels and a main panel
 		JPanel info = new JPanel();
@@ -150,6 +151,7 @@ public class GameClient {
 		buttons.add(receiveGame);
 		buttons.add(sendData);
 		buttons.add(play);
+		buttons.add(leaders);
 
 		JPanel options = new JPanel();
 		options.setLayout(new BorderLayout());
@@ -162,7 +164,7 @@ public class GameClient {
 		window.add(consoleScroll, BorderLayout.CENTER);
 
 		// set size and show
-		window.setSize(630, 350);
+		window.setSize(720, 350);
 		window.setResizable(false);
 		window.setVisible(true);
 		window.setLocationRelativeTo(null);
@@ -172,6 +174,7 @@ public class GameClient {
 		gameView = new GameView();
 		gameModel = new GameModel();
 		gameController = new GameController(gameView, gameModel);
+		outbox = new GameOutbox(message -> SwingUtilities.invokeLater(() -> write(message)));
 	}
 
 	/**
@@ -185,104 +188,120 @@ public class GameClient {
 	}
 
 	/**
-	 * Attempts to connect to the server
-	 * @return Return a boolean for connection status
+	 * Starts connecting to the server, the name is sent once the server answers
+	 * @param name The user name to send
 	 */
-	private static boolean connect() {
+	private static void connect(String name) {
 		// create a socket with port number and server name
 		serverName = serverNameInput.getText();
-
-		try {
-			// socket for connection
-			socket = new Socket(serverName, portNum);
-			// buffered reader for information from server
-			serverInput = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-			// print stream to send information to server
-			serverOutput = new PrintStream(socket.getOutputStream());
-			// get the client id from server
-			clientId = serverInput.readLine();
+		connect.setEnabled(false);
+		// the channel connects on its own thread, the result comes back to the event thread
+		GameChannel.open(serverName, portNum).whenComplete((opened, error) -> SwingUtilities.invokeLater(() -> {
+			if (error != null) {
+				Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+				System.out.println(cause);
+				if (cause instanceof UnknownHostException) {
+					write("Host name is invalid");
+				} else if (cause instanceof IOException) {
+					write("Port Number is invalid");
+				} else {
+					write("Unknown error");
+				}
+				write("We are not connected to a server");
+				connected = false;
+				connect.setEnabled(true);
+				return;
+			}
+			channel = opened;
+			clientId = channel.getClientId();
 			// write we are connected
-			write("We are client " + clientId + " connected in server");
+			write("We are client " + clientId + " connected in server using protocol version "
+					+ channel.getVersion());
 			connected = true;
-			return true;
-		} catch (UnknownHostException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-			write("Host name is invalid");
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-			write("Port Number is invalid");
-		} catch (Exception e) {
-			e.printStackTrace();
-			write("Unknown error");
-		}
-		connected = false;
-		return false;
+			// send our name, then any results kept while we were not connected
+			sendData(2, name);
+			outbox.setChannel(channel);
+		}));
 	}
 
 	/**
-	 * Attempts to send data to the server
+	 * Sends data to the server without waiting, the reply is handled on the event
+	 * thread when it arrives
 	 * @param protocol Protocol number for communication purposes
 	 * @param data The data being sent
-	 * @throws IOException Disconnection exception
+	 * @return The information the server returned, completed on the channel's thread
 	 */
-	private static void sendData(int protocol, String data) throws IOException {
-		// set output to data taken in
-		String output = data;
-		String input;
-		try {
-			write("Sending " + output);
-			// add necessary format
-			output = clientId + "#P" + protocol + "#" + output;
-			// send to server
-			serverOutput.println(output);
-			serverOutput.flush();
-			// receive information from server
-			input = serverInput.readLine();
-			String[] splitInput = input.split("#");
-			// write("Server sent: " + input);
-
-			// case structure depending on protocol
-			switch (protocol) {
-			// cases 0 - 4 not receiving anything
-			case 0:
-				// end game protocol
-				write("Closing connection...");
-				break;
-			case 1:
-			case 2:
-			case 3:
-				write(data + " sent");
-				break;
-			case 4:
-				// receiving game configuration
-				if (splitInput[1].equals("0")) {
-					write("Server has no saved game");
-				} else {
-					gameModel.generateBoard(splitInput[1]);
-					write("Received game " + gameModel.getString());
+	private static CompletableFuture<String> sendData(int protocol, String data) {
+		write("Sending " + data);
+		GameChannel sentOn = channel;
+		CompletableFuture<String> reply = sentOn.send(protocol, data);
+		reply.whenComplete((input, error) -> SwingUtilities.invokeLater(() -> {
+			if (error != null) {
+				// only report once for every message lost with the connection
+				if (sentOn == channel && connected) {
+					System.out.println(error);
+					// set connected to false and tell user we are disconnected
+					write("Connection to server lost");
+					connected = false;
+					connect.setEnabled(true);
+					outbox.setChannel(null);
 				}
-				break;
-			case 5:
-				break;
+				return;
 			}
+			received(protocol, data, input);
+		}));
+		return reply;
+	}
 
-			/*
-			 * write("Client[" + clientId + "]: ");
-			 * 
-			 * output = clientId + "#" + output; serverOutput.println(output);
-			 */
-
-			serverOutput.flush();
-			// socket.close();
-
-		} catch (Exception e) {
-			System.out.println(e);
-			// set connected to false and tell user we are disconnected
-			write("Connection to server lost");
-			connected = false;
-			connect.setEnabled(true);
+	/**
+	 * Acts on the information the server returned
+	 * @param protocol Protocol number of the message sent
+	 * @param data The data that was sent
+	 * @param input The information returned
+	 */
+	private static void received(int protocol, String data, String input) {
+		// case structure depending on protocol
+		switch (protocol) {
+		// cases 0 - 4 not receiving anything
+		case 0:
+			// end game protocol
+			write("Closing connection...");
+			break;
+		case 1:
+			// the server replies with the id it keeps the game under, an older server with 0
+			if (input.equals("0")) {
+				write(data + " sent");
+			} else {
+				write("Game sent, the server keeps it as " + input);
+			}
+			break;
+		case 2:
+		case 3:
+			write(data + " sent");
+			break;
+		case 4:
+			// receiving game configuration
+			if (input.equals("0")) {
+				write("Server has no saved game");
+			} else {
+				gameModel.generateBoard(input);
+				write("Received game " + gameModel.getString());
+			}
+			break;
+		case 5:
+			break;
+		case 6:
+			// receiving the leaderboard, name,score,time entries
+			if (input.equals("0")) {
+				write("No results for this board yet");
+			} else {
+				int place = 1;
+				for (String entry : input.split(";")) {
+					String[] parts = entry.split(",");
+					write(place++ + ". " + parts[0] + " scored " + parts[1] + " in " + parts[2] + " seconds");
+				}
+			}
+			break;
 		}
 	}
 
@@ -300,8 +319,8 @@ public class GameClient {
 		private static JPanel buttonGrid;
 		/** The combo box for grid options */
 		private static JComboBox options;
-		/** The array for configuration string */
-		private static int[][] configuration;
+		/** The model the drawing is edited in, it keeps the hints up to date */
+		private static GameModel drawModel;
 		/** The frame for the draw window */
 		private static JFrame drawGame;
 
@@ -320,8 +339,9 @@ public class GameClient {
 			options.addActionListener(this);
 			sizeSelection.add(enterSize);
 			sizeSelection.add(options);
-			// create array for game configuration
-			configuration = new int[dimension][dimension];
+			// create an empty board for the game configuration
+			drawModel = new GameModel();
+			drawModel.newBoard(dimension);
 			// create a button to save
 			JButton save = new JButton("save");
 			save.addActionListener(this);
@@ -441,26 +461,19 @@ public class GameClient {
 		 * Creates the configuration string based on the selected buttons
 		 */
 		private void createString() {
-			String config = "";
-			// loop through config array and create configuration string
-			int x = 0;
-			int y = 0;
-			for (y = 0; y < dimension; y++) {
-				for (x = 0; x < dimension; x++) {
-					// create the string depending on which buttons are selected
-					if (configuration[x][y] == 0) {
-						config += "0";
-					} else {
-						config += "1";
-					}
-				}
-				// add comma unless it is the last row
-				if (y < dimension - 1) {
-					config += ",";
-				}
-			}
-			// change the game config string
-			gameModel.generateBoard(config);
+			// change the game config string to the drawn board
+			gameModel.generateBoard(drawModel.getString());
+		}
+
+		/**
+		 * Shows the hints of a cell's row and column in the window title
+		 * 
+		 * @param x The cell's column
+		 * @param y The cell's row
+		 */
+		private void showHints(int x, int y) {
+			drawGame.setTitle("Row " + (y + 1) + ": " + Arrays.toString(drawModel.getRowHints(y)) + "  Column "
+					+ (x + 1) + ": " + Arrays.toString(drawModel.getColumnHints(x)));
 		}
 
 		/**
@@ -477,7 +490,7 @@ public class GameClient {
 				buttonGrid.revalidate();
 				buttonGrid.repaint();
 				drawGame.pack();
-				configuration = new int[dimension][dimension];
+				drawModel.newBoard(dimension);
 			} else if (e.getActionCommand().equals("save")) {
 				// if they click save set the game string, print and close
 				createString();
@@ -490,15 +503,17 @@ public class GameClient {
 				int x = Integer.parseInt(coordinate[0]) - 1;
 				int y = Integer.parseInt(coordinate[1]) - 1;
 				// check if button is unselected
-				if (configuration[x][y] == 0) {
+				// only the hints of this cell's row and column are worked out again
+				if (drawModel.checkSolution(x, y) == 0) {
 					// change color and set to selected
-					configuration[x][y] = 1;
+					drawModel.setSolution(x, y, true);
 					playButtons[x][y].setBackground(new Color(97, 197, 255));
 				} else {
 					// change color and set to unselected
-					configuration[x][y] = 0;
+					drawModel.setSolution(x, y, false);
 					playButtons[x][y].setBackground(Color.WHITE);
 				}
+				showHints(x, y);
 			}
 		}
 	}
@@ -539,35 +554,15 @@ public class GameClient {
 				}else {
 					// if it is valid establish server on port
 					portNum = Integer.parseInt(input);
-					try {
-						connected = connect();
-						// if we are connected act accordingly
-						if (connected == true) {
-							// send our name
-							sendData(2, userInput.getText());
-							// set connect button to not be enabled
-							connect.setEnabled(false);
-						} else {
-							write("We are not connected to a server");
-						}
-					} catch (IOException e1) {
-						// TODO Auto-generated catch block
-						e1.printStackTrace();
-					}
+					// our name is sent once we are connected
+					connect(userInput.getText());
 				}
 				break;
 			case "End":
-				try {
-					// send end protocol
-					if (connected == true) {
-						sendData(0, "0");
-						System.exit(0);
-					} else {
-						System.exit(0);
-					}
-				} catch (IOException e1) {
-					// TODO Auto-generated catch block
-					e1.printStackTrace();
+				// send end protocol, exiting once it is answered or the server is too slow
+				if (connected == true) {
+					sendData(0, "0").orTimeout(2, TimeUnit.SECONDS).whenComplete((reply, error) -> System.exit(0));
+				} else {
 					System.exit(0);
 				}
 				break;
@@ -587,42 +582,37 @@ public class GameClient {
 					write("No game stored, create a new game or receive one first");
 				} else {
 					// send the configuration
-					try {
-						if (connected == true) {
-							sendData(1, gameModel.getString());
-						} else {
-							write("We are not connected to a server");
-						}
-					} catch (IOException e1) {
-						// TODO Auto-generated catch block
-						e1.printStackTrace();
-					}
-				}
-				break;
-			case "Receive Game":
-				// send a request for a configuration
-				try {
 					if (connected == true) {
-						sendData(4, "0");
-						write("Current game is " + gameModel.getString());
+						sendData(1, gameModel.getString());
 					} else {
 						write("We are not connected to a server");
 					}
-				} catch (IOException e2) {
-					// TODO Auto-generated catch block
-					e2.printStackTrace();
+				}
+				break;
+			case "Receive Game":
+				// send a request for a configuration, the game is written when it arrives
+				if (connected == true) {
+					sendData(4, "0");
+				} else {
+					write("We are not connected to a server");
 				}
 				break;
 			case "Send Data":
-				try {
-					if (connected == true) {
-						sendData(3, gameController.returnInfo());
-					} else {
-						write("We are not connected to a server");
-					}
-				} catch (IOException e1) {
-					// TODO Auto-generated catch block
-					e1.printStackTrace();
+				// results are kept and sent in batches, even if we are not connected yet
+				outbox.add(gameController.returnInfo());
+				if (connected == true) {
+					write("Result " + gameController.returnInfo() + " queued");
+				} else {
+					write("Result " + gameController.returnInfo() + " queued, it is sent once we are connected");
+				}
+				break;
+			case "Leaders":
+				// ask for the best scores of the stored game, or of every game of its size
+				if (connected == true) {
+					sendData(6, new GameProtocol.Query(gameModel.getDimension(), gameModel.getHash(), 10, false)
+							.toString());
+				} else {
+					write("We are not connected to a server");
 				}
 				break;
 			case "Play":
@@ -0,0 +1,181 @@
+/*
+ * File name: GameClock.java
+ * Author: Mostapha A
+ * Purpose: Times a game and shows the time on the GUI
+ * Class list: GameModel.java, GameClock.java
+ */
+
+package piccross;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.IntConsumer;
+
+import javax.swing.Timer;
+
+/**
+ * GameClock class times a game from System.nanoTime, so the time does not
+ * drift or jump when the system clock changes. A clock is started, can be
+ * paused and resumed, and is stopped when the game ends, keeping the final
+ * time.<br>
+ * The clock is read when it is needed so it keeps the time to the millisecond
+ * and needs no thread. To show the time, every running clock shares one Swing
+ * timer that runs on the event thread and only updates a display when the
+ * second it shows has changed
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameModel.java, GameView.java
+ * @since Java 16
+ */
+public class GameClock {
+	/** The clock has not started or has been stopped */
+	public static final int STOPPED = 0;
+	/** The clock is counting */
+	public static final int RUNNING = 1;
+	/** The clock is paused and will count again when resumed */
+	public static final int PAUSED = 2;
+	/** Milliseconds between display checks, short so a second shows up on time */
+	private static final int TICK = 100;
+	/** The clocks that need their display checked */
+	private static final Set<GameClock> SHOWING = new CopyOnWriteArraySet<GameClock>();
+	/** Checks the displays of every running clock on the event thread */
+	private static final Timer TICKER = new Timer(TICK, e -> tick());
+	/** The state, STOPPED, RUNNING or PAUSED */
+	private int state = STOPPED;
+	/** The nanoseconds counted before the clock last started or resumed */
+	private long counted = 0;
+	/** When the clock last started or resumed, from System.nanoTime */
+	private long since;
+	/** Receives the seconds to show on the event thread, null if none */
+	private IntConsumer display;
+	/** The seconds last shown, -1 if none */
+	private int shown = -1;
+
+	/**
+	 * Sets where the time is shown
+	 *
+	 * @param newDisplay Receives the seconds on the event thread, null for none
+	 */
+	public synchronized void setDisplay(IntConsumer newDisplay) {
+		display = newDisplay;
+		shown = -1;
+	}
+
+	/**
+	 * Starts counting from 0, the clock may be in any state
+	 */
+	public synchronized void start() {
+		counted = 0;
+		since = System.nanoTime();
+		state = RUNNING;
+		shown = -1;
+		show();
+	}
+
+	/**
+	 * Pauses a running clock
+	 */
+	public synchronized void pause() {
+		if (state == RUNNING) {
+			counted += System.nanoTime() - since;
+			state = PAUSED;
+			show();
+		}
+	}
+
+	/**
+	 * Resumes a paused clock
+	 */
+	public synchronized void resume() {
+		if (state == PAUSED) {
+			since = System.nanoTime();
+			state = RUNNING;
+			show();
+		}
+	}
+
+	/**
+	 * Stops the clock, keeping the time it reached
+	 */
+	public synchronized void stop() {
+		if (state == RUNNING) {
+			counted += System.nanoTime() - since;
+		}
+		state = STOPPED;
+		show();
+	}
+
+	/**
+	 * Gets the state of the clock
+	 *
+	 * @return STOPPED, RUNNING or PAUSED
+	 */
+	public synchronized int getState() {
+		return state;
+	}
+
+	/**
+	 * Gets the time counted
+	 *
+	 * @return The time in milliseconds
+	 */
+	public synchronized long getMillis() {
+		long nanos = counted;
+		if (state == RUNNING) {
+			nanos += System.nanoTime() - since;
+		}
+		return nanos / 1000000;
+	}
+
+	/**
+	 * Gets the time counted in whole seconds
+	 *
+	 * @return The time in seconds
+	 */
+	public int getSeconds() {
+		return (int) (getMillis() / 1000);
+	}
+
+	/**
+	 * Has the shared timer check this clock's display, it checks once more after
+	 * the clock stops counting so the final time is shown
+	 */
+	private void show() {
+		if (display != null) {
+			synchronized (SHOWING) {
+				SHOWING.add(this);
+				TICKER.start();
+			}
+		}
+	}
+
+	/**
+	 * Updates the display of every clock whose second has changed, runs on the
+	 * event thread
+	 */
+	private static void tick() {
+		for (GameClock clock : SHOWING) {
+			IntConsumer target;
+			int seconds;
+			synchronized (clock) {
+				target = clock.display;
+				seconds = clock.getSeconds();
+				if (clock.state != RUNNING || target == null) {
+					// this is the last check until the clock counts again
+					SHOWING.remove(clock);
+				}
+				if (target == null || seconds == clock.shown) {
+					continue;
+				}
+				clock.shown = seconds;
+			}
+			target.accept(seconds);
+		}
+		synchronized (SHOWING) {
+			if (SHOWING.isEmpty()) {
+				TICKER.stop();
+			}
+		}
+	}
+}
@@ -0,0 +1,312 @@
+/*
+ * File name: GameCodec.java
+ * Author: Mostapha A
+ * Purpose: Converts boards to and from configuration strings
+ * Class list: GameBoard.java, GameModel.java, GameClient.java, GameCodec.java
+ */
+
+package piccross;
+
+import java.util.Arrays;
+
+/**
+ * GameCodec class converts between a packed board solution and its
+ * configuration string. Two string forms are supported:
+ * <ul>
+ * <li>The text form, rows of 0 and 1 separated by commas, "101,010,111"</li>
+ * <li>The compact form for large boards, the dimension then a colon then the
+ * cells row after row as bits in URL safe base64, "3:q4"</li>
+ * </ul>
+ * Strings are written straight from the packed rows into one char array and
+ * read straight into a board, without splitting or parsing each cell
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameBoard.java, GameModel.java
+ * @since Java 16
+ */
+public class GameCodec {
+	/** The characters of URL safe base64, none of them are used by the protocol */
+	private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+			.toCharArray();
+	/** The value of each base64 character, -1 if it is not one */
+	private static final int[] BASE64_VALUES = new int[128];
+
+	static {
+		Arrays.fill(BASE64_VALUES, -1);
+		for (int i = 0; i < BASE64.length; i++) {
+			BASE64_VALUES[BASE64[i]] = i;
+		}
+	}
+
+	/**
+	 * Not used, the codec only has static methods
+	 */
+	private GameCodec() {
+
+	}
+
+	/**
+	 * Gets the length of the text form of a board
+	 *
+	 * @param dimension The board dimension
+	 * @return The amount of characters
+	 */
+	public static int textLength(int dimension) {
+		return (int) ((long) dimension * dimension + dimension - 1);
+	}
+
+	/**
+	 * Writes the text form of a board into a char array
+	 *
+	 * @param board The board to write
+	 * @param out   The array to write to, at least textLength long
+	 * @return The amount of characters written
+	 */
+	public static int encode(GameBoard board, char[] out) {
+		int dimension = board.getDimension();
+		int position = 0;
+		int row;
+		int column;
+		for (row = 0; row < dimension; row++) {
+			// add a comma before every row but the first
+			if (row > 0) {
+				out[position++] = ',';
+			}
+			long word = 0L;
+			for (column = 0; column < dimension; column++) {
+				// read a new long every 64 columns
+				if ((column & 63) == 0) {
+					word = board.getSolutionWord(row, column >>> 6);
+				}
+				out[position++] = (char) ('0' + ((word >>> column) & 1L));
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Creates the text form of a board
+	 *
+	 * @param board The board to write
+	 * @return The configuration string
+	 */
+	public static String encode(GameBoard board) {
+		char[] out = new char[textLength(board.getDimension())];
+		int length = encode(board, out);
+		return new String(out, 0, length);
+	}
+
+	/**
+	 * Creates the compact form of a board
+	 *
+	 * @param board The board to write
+	 * @return The compact configuration string
+	 */
+	public static String encodeCompact(GameBoard board) {
+		int dimension = board.getDimension();
+		long cells = (long) dimension * dimension;
+		String header = dimension + ":";
+		char[] out = new char[header.length() + (int) ((cells + 5) / 6)];
+		header.getChars(0, header.length(), out, 0);
+		int position = header.length();
+
+		// every 6 cells become one base64 character
+		int value = 0;
+		int bits = 0;
+		int row;
+		int column;
+		for (row = 0; row < dimension; row++) {
+			for (column = 0; column < dimension; column++) {
+				value = (value << 1) | board.getSolution(column, row);
+				bits++;
+				if (bits == 6) {
+					out[position++] = BASE64[value];
+					value = 0;
+					bits = 0;
+				}
+			}
+		}
+		// pad the last character with false cells
+		if (bits > 0) {
+			out[position++] = BASE64[value << (6 - bits)];
+		}
+		return new String(out, 0, position);
+	}
+
+	/**
+	 * Reads a board from either form of configuration string
+	 *
+	 * @param config The configuration string
+	 * @return The board with the solution set and every cell unselected
+	 * @throws IllegalArgumentException If the string is not a valid configuration or
+	 *                                  its dimension is over GameBoard.MAX_DIMENSION
+	 */
+	public static GameBoard decode(String config) {
+		int colon = config.indexOf(':');
+		if (colon >= 0) {
+			return decodeCompact(config, colon);
+		}
+
+		// the first row's length is the dimension
+		int dimension = config.indexOf(',');
+		if (dimension < 0) {
+			dimension = config.length();
+		}
+		// check the dimension before working out the length from it
+		if (dimension == 0 || dimension > GameBoard.MAX_DIMENSION || config.length() != textLength(dimension)) {
+			throw new IllegalArgumentException("Invalid configuration " + config);
+		}
+
+		GameBoard board = new GameBoard(dimension);
+		int position = 0;
+		int row;
+		int column;
+		for (row = 0; row < dimension; row++) {
+			// skip the comma before every row but the first
+			if (row > 0 && config.charAt(position++) != ',') {
+				throw new IllegalArgumentException("Invalid configuration " + config);
+			}
+			for (column = 0; column < dimension; column++) {
+				char cell = config.charAt(position++);
+				if (cell == '1') {
+					board.setSolution(column, row, true);
+				} else if (cell != '0') {
+					throw new IllegalArgumentException("Invalid configuration " + config);
+				}
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Reads a board from the compact form
+	 *
+	 * @param config The configuration string
+	 * @param colon  The position of the colon after the dimension
+	 * @return The board with the solution set and every cell unselected
+	 */
+	private static GameBoard decodeCompact(String config, int colon) {
+		int dimension;
+		try {
+			dimension = Integer.parseInt(config.substring(0, colon));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid configuration " + config);
+		}
+		if (dimension <= 0 || dimension > GameBoard.MAX_DIMENSION) {
+			throw new IllegalArgumentException("Invalid configuration dimension " + dimension);
+		}
+		long cells = (long) dimension * dimension;
+		if (config.length() - colon - 1 != (cells + 5) / 6) {
+			throw new IllegalArgumentException("Invalid configuration " + config);
+		}
+
+		GameBoard board = new GameBoard(dimension);
+		int cell = 0;
+		int position;
+		for (position = colon + 1; position < config.length(); position++) {
+			char c = config.charAt(position);
+			int value = c < 128 ? BASE64_VALUES[c] : -1;
+			if (value < 0) {
+				throw new IllegalArgumentException("Invalid configuration " + config);
+			}
+			// each character holds 6 cells, highest bit first
+			int bit;
+			for (bit = 5; bit >= 0 && cell < cells; bit--) {
+				if (((value >>> bit) & 1) == 1) {
+					board.setSolution(cell % dimension, cell / dimension, true);
+				}
+				cell++;
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Packs a board into bytes for the binary protocol, two bytes of dimension
+	 * then the cells row after row, eight cells a byte with the first cell in the
+	 * highest bit
+	 *
+	 * @param board The board to pack
+	 * @return The packed board
+	 */
+	public static byte[] toBytes(GameBoard board) {
+		int dimension = board.getDimension();
+		long cells = (long) dimension * dimension;
+		byte[] out = new byte[2 + (int) ((cells + 7) / 8)];
+		out[0] = (byte) (dimension >>> 8);
+		out[1] = (byte) dimension;
+		int cell = 0;
+		int row;
+		int column;
+		for (row = 0; row < dimension; row++) {
+			for (column = 0; column < dimension; column++) {
+				if (board.getSolution(column, row) == 1) {
+					out[2 + (cell >>> 3)] |= (byte) (0x80 >>> (cell & 7));
+				}
+				cell++;
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Reads a board packed by toBytes
+	 *
+	 * @param data The packed board
+	 * @return The board, or null if the dimension is 0 meaning no board
+	 * @throws IllegalArgumentException If the data is not a packed board
+	 */
+	public static GameBoard fromBytes(byte[] data) {
+		if (data.length < 2) {
+			throw new IllegalArgumentException("Invalid packed board");
+		}
+		int dimension = ((data[0] & 0xFF) << 8) | (data[1] & 0xFF);
+		if (dimension == 0) {
+			return null;
+		}
+		if (dimension > GameBoard.MAX_DIMENSION) {
+			throw new IllegalArgumentException("Invalid packed board dimension " + dimension);
+		}
+		long cells = (long) dimension * dimension;
+		if (data.length != 2 + (cells + 7) / 8) {
+			throw new IllegalArgumentException("Invalid packed board");
+		}
+		GameBoard board = new GameBoard(dimension);
+		int cell = 0;
+		int row;
+		int column;
+		for (row = 0; row < dimension; row++) {
+			for (column = 0; column < dimension; column++) {
+				if ((data[2 + (cell >>> 3)] & (0x80 >>> (cell & 7))) != 0) {
+					board.setSolution(column, row, true);
+				}
+				cell++;
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Works out a hash of a board's solution, the same solution always has the
+	 * same hash so a configuration can be recognised without sending it
+	 *
+	 * @param board The board
+	 * @return The hash, never 0 which means no configuration
+	 */
+	public static long hash(GameBoard board) {
+		int dimension = board.getDimension();
+		int words = (dimension + 63) >>> 6;
+		long hash = 0xCBF29CE484222325L ^ dimension;
+		int row;
+		int word;
+		for (row = 0; row < dimension; row++) {
+			for (word = 0; word < words; word++) {
+				// mix every long so nearby boards get far apart hashes
+				hash = (hash ^ board.getSolutionWord(row, word)) * 0x9E3779B97F4A7C15L;
+				hash ^= hash >>> 32;
+			}
+		}
+		return hash == 0 ? 1 : hash;
+	}
+}
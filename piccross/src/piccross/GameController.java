@@ -14,12 +14,17 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.JButton;
 import javax.swing.JColorChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
  * GameController class that sets up the pic cross game
@@ -58,8 +63,12 @@ public class GameController extends JFrame {
 	private static Color errorColour = new Color(200, 86, 70);
 	/** The handler for the mark check box */
 	CheckBoxHandler checkBoxHandler = new CheckBoxHandler();
-	/** This is the time and score, it is set to 0 until the game is finished */
+	/** This is the time, score, dimension and configuration hash, it is set to 0 until the game is finished */
 	private static String gameInfo = "0#0";
+	/** Generates games in the background for the new game menu */
+	private GamePool gamePool = new GamePool(3, 5, 10);
+	/** Counts the new games asked for, a game generated for an older one is not used */
+	private int newGames = 0;
 
 	/**
 	 * Constructor for controller, takes in GameView and GameModel objects
@@ -71,21 +80,35 @@ public class GameController extends JFrame {
 		// set to class variables
 		gameView = view;
 		gameModel = model;
+		// the time does not count while the window is minimised
+		gameView.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowIconified(WindowEvent e) {
+				gameModel.pauseTimer();
+			}
+
+			@Override
+			public void windowDeiconified(WindowEvent e) {
+				gameModel.resumeTimer();
+			}
+		});
 	}
 
 	/**
-	 * Starts the game, creates visual components and data needed
+	 * Starts the game, creates visual components and data needed. With an empty
+	 * configuration the game starts on the event thread once the pool has one
+	 * @param gameConfig The configuration string, empty for a generated game
 	 */
 	public void startGame(String gameConfig) {
 		// create data for game logic
 		if (gameConfig == "") {
-			gameModel.generateString();
-			gameModel.generateBoard(gameModel.getString());
-		} else {
-			gameModel.generateBoard(gameConfig);
-			dimension = gameModel.getDimension();
-			gameView.setDimension(dimension);
+			// start once the pool has a game, without waiting on this thread
+			gamePool.take(gameModel.getDimension()).thenAcceptAsync(this::startGame, SwingUtilities::invokeLater);
+			return;
 		}
+		gameModel.generateBoard(gameConfig);
+		dimension = gameModel.getDimension();
+		gameView.setDimension(dimension);
 
 		score = 0;
 		// create all the visual components
@@ -96,16 +119,39 @@ public class GameController extends JFrame {
 		gameView.newGame(new PlayButtonHandler(), checkBoxHandler);
 		*/
 		
+		showGame();
+	}
+
+	/**
+	 * Starts the first game with the work split up, the board and its hints are
+	 * made on a background thread while the window and its components are made
+	 * on the event thread. Call from any thread
+	 * 
+	 * @return Completes on the event thread once the game window shows
+	 */
+	public CompletableFuture<Void> startGameAsync() {
+		// the puzzle, a ready game from the pool and its hints
+		CompletableFuture<Void> puzzle = gamePool.take(gameModel.getDimension())
+				.thenAcceptAsync(gameModel::generateBoard);
+		// the window, its menu, control panel and grid only need the dimension
+		CompletableFuture<Void> window = CompletableFuture.runAsync(() -> gameView.startGame(new MenuHandler(),
+				new PlayButtonHandler(), new ResetHandler(), checkBoxHandler), SwingUtilities::invokeLater);
+		// once both are made write the hints and show the game
+		return puzzle.thenAcceptBothAsync(window, (ready, shown) -> {
+			score = 0;
+			showGame();
+		}, SwingUtilities::invokeLater);
+	}
+
+	/**
+	 * Writes the hints, shows the window and starts the time
+	 */
+	private void showGame() {
 		// setup hints
 		setupHints();
-		// start time
-		int time = gameModel.returnTime();
-		if (time == 0) {
-			gameModel.startTimer(gameView);
-		} else {
-			gameModel.resetTime();
-		}
-		
+		gameView.showGame();
+		// start time, a game started again replaces the last one's time
+		gameModel.startTimer(gameView);
 	}
 	
 	/**
@@ -119,97 +165,24 @@ public class GameController extends JFrame {
 	/**
 	 * Return the current time and score
 	 * 
-	 * @return The time and score in a string
+	 * @return The time and score in a string, time#score#dimension#hash
 	 */
 	public String returnInfo() {
 		return gameInfo;
 	}
 
 	/**
-	 * Calculates the hints and sends them to the View to write
+	 * Gets the hints worked out by the model and sends them to the View to write
 	 */
 	public void setupHints() {
-		// create hint arrays, and write in hint areas
-		int hintDimension = 6;
-		Integer[][] hintsTop = new Integer[dimension][hintDimension];
-		Integer[][] hintsSide = new Integer[dimension][hintDimension];
-		// variables for loops
-		int j;
+		int[][] hintsTop = new int[dimension][];
+		int[][] hintsSide = new int[dimension][];
 		int i;
-		int hintCounterSide;
-		int hintCounterTop;
-		int rowHint;
-		int colHint;
-		int rowHintPrev;
-		int colHintPrev;
-
-		// set hints to 0 by default
-		for (i = 0; i < dimension; i++) {
-			for (j = 0; j < hintDimension; j++) {
-				hintsTop[i][j] = 0;
-				hintsSide[i][j] = 0;
-			}
-		}
 
-		// loop to check solution for hints
+		// the model keeps the hints of each column (top) and row (side)
 		for (i = 0; i < dimension; i++) {
-			// hints and related variables start/reset at 0
-			rowHint = 0;
-			colHint = 0;
-			rowHintPrev = 0;
-			colHintPrev = 0;
-			hintCounterSide = 0;
-			hintCounterTop = 0;
-			for (j = 0; j < dimension; j++) {
-				// check how many trues are in a row for the hintsSide (row)
-				if (gameModel.checkSolution(j, i) == 1) {
-					// increment current hint if the solution is true
-					rowHint++;
-				} else {
-					// otherwise set to 0
-					rowHint = 0;
-				}
-
-				// check if the current hint is 0, and previous was not we are storing hint, or
-				// if it is the last loop
-				if ((rowHint == 0) && (rowHintPrev > 0)) {
-					// store previous hint
-					hintsSide[i][hintCounterSide] = rowHintPrev;
-					hintCounterSide++;
-				} else if (j == dimension - 1) {
-					// if its last loop store the current row hint
-					hintsSide[i][hintCounterSide] = rowHint;
-					hintCounterSide++;
-				}
-
-				// set the previous row hint to current
-				rowHintPrev = rowHint;
-
-				// check how many trues are in a row for the hintsTop (column)
-				if (gameModel.checkSolution(i, j) == 1) {
-					// increment current hint if the solution is true
-					colHint++;
-				} else {
-					// otherwise set to 0
-					colHint = 0;
-				}
-
-				// check if the current hint is 0, and previous was not we are storing hint, or
-				// if it is the last loop
-				if ((colHint == 0) && (colHintPrev > 0)) {
-					// store previous hint
-					hintsTop[i][hintCounterTop] = colHintPrev;
-					hintCounterTop++;
-				} else if (j == dimension - 1) {
-					// if its last loop store the current column hint
-					hintsTop[i][hintCounterTop] = colHint;
-					hintCounterTop++;
-				}
-
-				// set the previous column hint to current
-				colHintPrev = colHint;
-			}
-
+			hintsTop[i] = gameModel.getColumnHints(i);
+			hintsSide[i] = gameModel.getRowHints(i);
 		}
 
 		// call function to write to hint areas
@@ -217,13 +190,12 @@ public class GameController extends JFrame {
 	}
 
 	/**
-	 * Works with the view to change the colours of the buttons
+	 * Works with the view to change the colours of the buttons, the model keeps
+	 * the buttons with each selection status so only those are changed
 	 * 
 	 * @param whichColour indicates which colour (selection/marked/error) to change
 	 */
 	private void changeColours(int whichColour) {
-		int column = 0;
-		int row = 0;
 		Color colour;
 
 		// set colour based on whats selected
@@ -235,37 +207,40 @@ public class GameController extends JFrame {
 			colour = errorColour;
 		}
 
-		// loop through the grid of buttons, changing corresponding colour
-		for (row = 0; row < dimension; row++) {
-			for (column = 0; column < dimension; column++) {
-				// check the button selection status and update it's colour if it matches
-				if (gameModel.checkButtonSelected(column, row) == whichColour) {
-					gameView.changeButton(column, row, colour);
-				}
-			}
-		}
+		// change only the buttons with that status, repainted together
+		gameView.changeButtons(gameModel.getSelected(whichColour), colour);
 	}
 
 	/**
-	 * Shows the solution on the buttons
+	 * Shows the solution on the buttons, buttons already selected correctly are
+	 * left as they are
 	 */
 	private void showSolution() {
-		int column = 0;
-		int row = 0;
-
-		// loop through the grid of buttons, changing corresponding colour
-		for (row = 0; row < dimension; row++) {
-			for (column = 0; column < dimension; column++) {
-				// check the button solution and change button
-				if (gameModel.checkSolution(column, row) == 0) {
-					gameModel.selectButton(column, row, true);
-					gameView.changeButton(column, row, markedColour);
-				} else {
-					gameModel.selectButton(column, row, false);
-					gameView.changeButton(column, row, correctColour);
-				}
+		int cells = dimension * dimension;
+		// the buttons that already show their solution
+		BitSet done = (BitSet) gameModel.getSelected(0).clone();
+		done.or(gameModel.getSelected(1));
+		// the buttons changed to marks and to selections
+		BitSet marks = new BitSet(cells);
+		BitSet fills = new BitSet(cells);
+
+		// loop through the rest of the buttons, unselected or incorrect
+		int cell;
+		for (cell = done.nextClearBit(0); cell < cells; cell = done.nextClearBit(cell + 1)) {
+			int column = cell % dimension;
+			int row = cell / dimension;
+			// check the button solution and change button
+			if (gameModel.checkSolution(column, row) == 0) {
+				gameModel.selectButton(column, row, true);
+				marks.set(cell);
+			} else {
+				gameModel.selectButton(column, row, false);
+				fills.set(cell);
 			}
 		}
+		// repaint the changed buttons together
+		gameView.changeButtons(marks, markedColour);
+		gameView.changeButtons(fills, correctColour);
 	}
 
 	/**
@@ -308,7 +283,7 @@ public class GameController extends JFrame {
 
 			// print action to history area (text area in control panel) and console
 			gameView.historyAreaMessage("Pos " + actionCommand + " clicked;\n");
-			System.out.println(actionCommand);
+			gameView.echo(actionCommand);
 
 			// check if the button is selected
 			if (gameModel.checkButtonSelected(column, row) == -1) {
@@ -331,9 +306,15 @@ public class GameController extends JFrame {
 				selections++;
 				// if we reached end of the game, show dialog
 				if (selections == dimension * dimension) {
+					// stop the time before the dialog so it is not counted
+					gameModel.stopTimer();
+					long millis = gameModel.returnMillis();
+					gameView.historyAreaMessage("Finished in " + millis / 1000 + "." + String.format("%03d", millis % 1000)
+							+ " seconds;\n");
 					gameView.endGame(score);
 					int time = gameModel.returnTime();
-					gameInfo = time + "#" + score;
+					// the board is sent with the result so the server can rank it with the same games
+					gameInfo = new GameProtocol.Result(time, score, dimension, gameModel.getHash()).toString();
 				}
 			}
 
@@ -363,7 +344,7 @@ public class GameController extends JFrame {
 		public void actionPerformed(ActionEvent e) {
 			// clear the history area text
 			gameView.historyAreaMessage("");
-			System.out.println("History area cleared");
+			gameView.echo("History area cleared");
 
 			// reset buttons
 			gameView.reset();
@@ -394,10 +375,10 @@ public class GameController extends JFrame {
 			// if the check box is selected or unselected print info and toggle our variable
 			if (gameView.checkMark() == true) {
 				gameView.historyAreaMessage("Mark set;" + "\n");
-				System.out.println("Mark set;");
+				gameView.echo("Mark set;");
 			} else {
 				gameView.historyAreaMessage("Mark reset;" + "\n");
-				System.out.println("Mark reset;");
+				gameView.echo("Mark reset;");
 			}
 		}
 	}
@@ -425,81 +406,35 @@ public class GameController extends JFrame {
 			// 3 = exit
 			// 4 = colours
 			// 5 = about
+			// 6 = custom size grid
+			// 7 = zoom in
+			// 8 = zoom out
 
 			String menuChoice = e.getActionCommand();
 
 			// depending on menu choice do something
 			if (menuChoice == "13") {
 				// make a new game with a 3x3 grid
-				System.out.println("menu choice 3x3 grid selected");
-
-				// reset view and model
-				gameView.reset();
-				gameModel.reset();
-				resetController();
-
-				// set new dimension
-				dimension = 3;
-				gameView.setDimension(dimension);
-				gameModel.setDimension(dimension);
-
-				// reset play area
-				gameView.newGame(new PlayButtonHandler(), checkBoxHandler);
-
-				// create data for game logic
-				gameModel.generateString();
-				gameModel.generateBoard(gameModel.getString());
-
-				// setup hints
-				setupHints();
-
+				gameView.echo("menu choice 3x3 grid selected");
+				newGame(3);
 			} else if (menuChoice == "15") {
 				// make a new game with a 5x5 grid
-				System.out.println("menu choice 5x5 grid selected");
-				// reset view and model
-				gameView.reset();
-				gameModel.reset();
-				resetController();
-
-				// set new dimension
-				dimension = 5;
-				gameView.setDimension(dimension);
-				gameModel.setDimension(dimension);
-
-				// reset play area
-				gameView.newGame(new PlayButtonHandler(), checkBoxHandler);
-
-				// create data for game logic
-				gameModel.generateString();
-				gameModel.generateBoard(gameModel.getString());
-
-				// setup hints
-				setupHints();
+				gameView.echo("menu choice 5x5 grid selected");
+				newGame(5);
 			} else if (menuChoice == "110") {
 				// make a new game with a 10x10 grid
-				System.out.println("menu choice 10x10 grid selected");
-				// reset view and model
-				gameView.reset();
-				gameModel.reset();
-				resetController();
-				
-				// set new dimension
-				dimension = 10;
-				gameView.setDimension(dimension);
-				gameModel.setDimension(dimension);
-
-				// reset play area
-				gameView.newGame(new PlayButtonHandler(), checkBoxHandler);
-
-				// create data for game logic
-				gameModel.generateString();
-				gameModel.generateBoard(gameModel.getString());
-
-				// setup hints
-				setupHints();
+				gameView.echo("menu choice 10x10 grid selected");
+				newGame(10);
+			} else if (menuChoice == "6") {
+				// make a new game with a grid size the user chooses
+				gameView.echo("menu choice custom grid selected");
+				int size = gameView.askDimension();
+				if (size > 0) {
+					newGame(size);
+				}
 			} else if (menuChoice == "2") {
 				// display the solution, set score to 0
-				System.out.println("menu choice solution selected");
+				gameView.echo("menu choice solution selected");
 				gameModel.reset();
 				gameView.reset();
 				showSolution();
@@ -511,23 +446,65 @@ public class GameController extends JFrame {
 				// print to history area
 				for (String row : rows) {
 					gameView.historyAreaMessage(row + "\n");
-					System.out.println(row);
+					gameView.echo(row);
 				}
 			} else if (menuChoice == "3") {
 				// exit the game
-				System.out.println("menu choice exit selected");
+				gameView.echo("menu choice exit selected");
+				gameView.flushEcho();
 				System.exit(0);
 			} else if (menuChoice == "4") {
 				// display colour chooser
-				System.out.println("menu choice colour selected");
+				gameView.echo("menu choice colour selected");
 				new ColourChooser();
 			} else if (menuChoice == "5") {
 				// display about dialog
-				System.out.println("menu choice about selected");
+				gameView.echo("menu choice about selected");
 				gameView.aboutDialog();
+			} else if (menuChoice == "7") {
+				// show the grid bigger
+				gameView.zoom(true);
+			} else if (menuChoice == "8") {
+				// show more of the grid
+				gameView.zoom(false);
 			}
 		}
 
+		/**
+		 * Makes a new game with a grid of the given size
+		 * 
+		 * @param newDimension The grid dimension
+		 */
+		private void newGame(int newDimension) {
+			// the old game stays as it is until the new board is ready, so the grid,
+			// hints, solution and time always belong to the same board
+			int game = ++newGames;
+			gamePool.take(newDimension).thenAcceptAsync(config -> {
+				// another new game was asked for meanwhile
+				if (game != newGames) {
+					return;
+				}
+				// reset view and model
+				gameView.reset();
+				gameModel.reset();
+				resetController();
+
+				// set new dimension
+				dimension = newDimension;
+				gameView.setDimension(dimension);
+				gameModel.setDimension(dimension);
+
+				// create data for game logic from the ready game
+				gameModel.generateBoard(config);
+
+				// reset play area
+				gameView.newGame(new PlayButtonHandler(), checkBoxHandler);
+
+				// setup hints
+				setupHints();
+			}, SwingUtilities::invokeLater);
+		}
+
 	}
 
 	/**
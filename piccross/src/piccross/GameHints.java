@@ -0,0 +1,176 @@
+/*
+ * File name: GameHints.java
+ * Author: Mostapha A
+ * Purpose: Paints the row or column hints as one component
+ * Class list: GameView.java, GameHints.java
+ */
+
+package piccross;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+import javax.swing.JComponent;
+
+/**
+ * GameHints class paints the hints for every column above the grid or every row
+ * beside it. The hints line up with the grid's cells at any cell size and lines
+ * with fewer hints are padded so the hints sit against the grid, like the old
+ * hint areas. Only the lines inside the area being repainted are painted, so a
+ * large board scrolled in a viewport only paints what is visible
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameView.java, GameCanvas.java
+ * @since Java 16
+ */
+public class GameHints extends JComponent {
+	/** Serial version */
+	private static final long serialVersionUID = 1L;
+	/** The background of the hint areas */
+	private static final Color BACKGROUND = new Color(107, 112, 122);
+	/** The lines between hint areas */
+	private static final Color SEPARATOR = new Color(84, 91, 102);
+	/** The largest hint font */
+	private static final float MAX_FONT = 18f;
+	/** The smallest hint font */
+	private static final float MIN_FONT = 7f;
+	/** Whether the hints are for columns above the grid, otherwise rows beside it */
+	private final boolean top;
+	/** The hints of each line */
+	private int[][] hints = new int[0][];
+	/** The most hints in a line */
+	private int most = 0;
+	/** The width of the widest hint in characters */
+	private int digits = 1;
+	/** The width and height of a grid cell in pixels */
+	private int cellSize;
+	/** The font sized to the cells */
+	private Font hintFont;
+	/** The space for one hint across the lines, its height above the grid or width beside it */
+	private int slot;
+
+	/**
+	 * Creates an empty hint area
+	 *
+	 * @param top      Whether the hints are for columns above the grid, otherwise
+	 *                 for rows beside it
+	 * @param cellSize The width and height of a grid cell in pixels
+	 * @param font     The font the hint font is derived from
+	 */
+	public GameHints(boolean top, int cellSize, Font font) {
+		this.top = top;
+		setFont(font);
+		setOpaque(true);
+		setCellSize(cellSize);
+	}
+
+	/**
+	 * Sets the hints to paint
+	 *
+	 * @param newHints The hints of each line, first to last
+	 */
+	public void setHints(int[][] newHints) {
+		hints = newHints;
+		most = 0;
+		int largest = 0;
+		for (int[] line : hints) {
+			most = Math.max(most, line.length);
+			for (int hint : line) {
+				largest = Math.max(largest, hint);
+			}
+		}
+		digits = Integer.toString(largest).length();
+		resize();
+	}
+
+	/**
+	 * Changes the size of the grid cells the hints line up with
+	 *
+	 * @param newCellSize The width and height of a grid cell in pixels
+	 */
+	public void setCellSize(int newCellSize) {
+		cellSize = newCellSize;
+		// the font follows the cells so zooming out shrinks the hints too
+		hintFont = getFont().deriveFont(Math.max(MIN_FONT, Math.min(MAX_FONT, cellSize * 0.6f)));
+		resize();
+	}
+
+	/**
+	 * Works out the space for each hint and the size of the area
+	 */
+	private void resize() {
+		FontMetrics metrics = getFontMetrics(hintFont);
+		if (top) {
+			slot = metrics.getHeight();
+			setPreferredSize(new Dimension(hints.length * cellSize, Math.max(1, most) * slot + slot / 2));
+		} else {
+			slot = metrics.charWidth('0') * (digits + 1);
+			setPreferredSize(new Dimension(Math.max(1, most) * slot + slot / 2, hints.length * cellSize));
+		}
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Paints the hints of the lines inside the area being repainted
+	 *
+	 * @param g The graphics to paint with
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		g.setColor(BACKGROUND);
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		if (hints.length == 0) {
+			return;
+		}
+
+		// only the lines the clip touches
+		int start = top ? clip.x : clip.y;
+		int end = top ? clip.x + clip.width : clip.y + clip.height;
+		int first = Math.max(0, start / cellSize);
+		int last = Math.min(hints.length - 1, (end - 1) / cellSize);
+		// the hints are against the grid, the far edge of the area
+		int edge = top ? getHeight() : getWidth();
+
+		g.setFont(hintFont);
+		FontMetrics metrics = g.getFontMetrics();
+		int line;
+		int i;
+		for (line = first; line <= last; line++) {
+			int lineStart = line * cellSize;
+			// separate each line like the old hint area borders
+			g.setColor(SEPARATOR);
+			if (top) {
+				g.fillRect(lineStart, 0, 1, edge);
+			} else {
+				g.fillRect(0, lineStart, edge, 1);
+			}
+			g.setColor(Color.WHITE);
+			int[] lineHints = hints[line];
+			for (i = 0; i < lineHints.length; i++) {
+				String text = Integer.toString(lineHints[i]);
+				// the last hint is next to the grid
+				int fromEdge = (lineHints.length - i) * slot;
+				int x;
+				int y;
+				if (top) {
+					x = lineStart + (cellSize - metrics.stringWidth(text)) / 2;
+					y = edge - fromEdge + metrics.getAscent();
+				} else {
+					x = edge - fromEdge + slot - metrics.stringWidth(text) - metrics.charWidth('0') / 2;
+					y = lineStart + (cellSize - metrics.getHeight()) / 2 + metrics.getAscent();
+				}
+				g.drawString(text, x, y);
+			}
+		}
+	}
+}
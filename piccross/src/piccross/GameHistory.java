@@ -0,0 +1,242 @@
+/*
+ * File name: GameHistory.java
+ * Author: Mostapha A
+ * Purpose: Shows the latest history messages in a fixed amount of memory
+ * Class list: GameView.java, GameHistory.java
+ */
+
+package piccross;
+
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+
+/**
+ * GameHistory class replaces the history text area. The lines are kept in a
+ * ring buffer, so when it is full the oldest line is dropped and a long session
+ * uses the same memory and paints as fast as a short one. Only the lines inside
+ * the area being repainted are painted.<br>
+ * Messages can be added from any thread. They are collected and added to the
+ * lines together once per pass of the event thread, so many messages in a row
+ * cause one layout and one repaint
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameView.java
+ * @since Java 16
+ */
+public class GameHistory extends JComponent implements Scrollable {
+	/** Serial version */
+	private static final long serialVersionUID = 1L;
+	/** The space left of the text in pixels */
+	private static final int MARGIN = 2;
+	/** The lines kept, oldest first from start */
+	private final String[] lines;
+	/** The index of the oldest line */
+	private int start = 0;
+	/** The amount of lines kept */
+	private int count = 0;
+	/** The text of the last line until it ends with a new line */
+	private final StringBuilder partial = new StringBuilder();
+	/** Messages added since the last pass of the event thread */
+	private final StringBuilder waiting = new StringBuilder();
+	/** Whether adding the waiting messages is already planned */
+	private final AtomicBoolean planned = new AtomicBoolean();
+
+	/**
+	 * Creates an empty history
+	 *
+	 * @param capacity The most lines kept
+	 */
+	public GameHistory(int capacity) {
+		lines = new String[capacity];
+		setOpaque(true);
+	}
+
+	/**
+	 * Adds a message, the lines are shown on the next pass of the event thread
+	 *
+	 * @param message The text, a new line ends a line
+	 */
+	public void append(String message) {
+		if (message.isEmpty()) {
+			return;
+		}
+		synchronized (waiting) {
+			waiting.append(message);
+		}
+		if (planned.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(this::flush);
+		}
+	}
+
+	/**
+	 * Removes every line, including messages not yet shown
+	 */
+	public void clear() {
+		synchronized (waiting) {
+			waiting.setLength(0);
+		}
+		start = 0;
+		count = 0;
+		partial.setLength(0);
+		resize();
+	}
+
+	/**
+	 * Adds the waiting messages to the lines and shows the newest, runs on the
+	 * event thread
+	 */
+	private void flush() {
+		planned.set(false);
+		String text;
+		synchronized (waiting) {
+			text = waiting.toString();
+			waiting.setLength(0);
+		}
+		if (text.isEmpty()) {
+			return;
+		}
+		if (count == 0) {
+			// the unfinished line shows as the last line
+			count = 1;
+			lines[start] = "";
+		}
+		int from = 0;
+		int end;
+		while ((end = text.indexOf('\n', from)) >= 0) {
+			partial.append(text, from, end);
+			lines[(start + count - 1) % lines.length] = partial.toString();
+			partial.setLength(0);
+			// start the next line, dropping the oldest when full
+			if (count == lines.length) {
+				start = (start + 1) % lines.length;
+			} else {
+				count++;
+			}
+			lines[(start + count - 1) % lines.length] = "";
+			from = end + 1;
+		}
+		partial.append(text, from, text.length());
+		lines[(start + count - 1) % lines.length] = partial.toString();
+		resize();
+		// keep the newest line in view like the text area's caret did
+		scrollRectToVisible(new Rectangle(0, getHeight() - 1, 1, 1));
+	}
+
+	/**
+	 * Sizes the component to the lines kept, the viewport is told at once so it
+	 * can scroll to the end
+	 */
+	private void resize() {
+		int height = count * lineHeight();
+		setPreferredSize(new Dimension(1, height));
+		setSize(getWidth(), height);
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Gets the height of one line
+	 *
+	 * @return The height in pixels
+	 */
+	private int lineHeight() {
+		return getFontMetrics(getFont()).getHeight();
+	}
+
+	/**
+	 * Paints the lines inside the area being repainted
+	 *
+	 * @param g The graphics to paint with
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		g.setColor(getBackground());
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		if (count == 0) {
+			return;
+		}
+
+		// only the lines the clip touches
+		g.setFont(getFont());
+		FontMetrics metrics = g.getFontMetrics();
+		int height = metrics.getHeight();
+		int first = Math.max(0, clip.y / height);
+		int last = Math.min(count - 1, (clip.y + clip.height - 1) / height);
+		g.setColor(getForeground());
+		int line;
+		for (line = first; line <= last; line++) {
+			g.drawString(lines[(start + line) % lines.length], MARGIN, line * height + metrics.getAscent());
+		}
+	}
+
+	/**
+	 * Gets the size of the viewport before it is laid out
+	 *
+	 * @return The preferred size
+	 */
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		return getPreferredSize();
+	}
+
+	/**
+	 * Scrolls by one line
+	 *
+	 * @param visibleRect The area showing
+	 * @param orientation The direction of scrolling
+	 * @param direction   Up or down
+	 * @return The height of a line
+	 */
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return lineHeight();
+	}
+
+	/**
+	 * Scrolls by a page
+	 *
+	 * @param visibleRect The area showing
+	 * @param orientation The direction of scrolling
+	 * @param direction   Up or down
+	 * @return The size of the area showing
+	 */
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+	}
+
+	/**
+	 * The lines are as wide as the viewport
+	 *
+	 * @return true
+	 */
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		return true;
+	}
+
+	/**
+	 * The lines are as tall as they need, the viewport scrolls them, but fill the
+	 * viewport while there are only a few
+	 *
+	 * @return Whether the viewport is taller than the lines
+	 */
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * File name: GameLeaderboard.java
+ * Author: Mostapha A
+ * Purpose: Ranks the results sent to the server for each board
+ * Class list: GameServer.java, GameLeaderboard.java, Entry, Ranking
+ */
+
+package piccross;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GameLeaderboard class keeps the best scores and fastest times of every board
+ * dimension, and of every configuration by its hash. A result counts for its
+ * configuration and for its dimension, so players can compare themselves on
+ * the same puzzle or on every puzzle of a size.<br>
+ * Each ranking is a concurrent skip list kept to the best SIZE results, adding
+ * a result never locks and a result worse than the last one of a full ranking
+ * is turned away after one look. Reading the top N walks the first N entries of
+ * the list, so it does not depend on how many clients or results there are
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java, GameResults.java
+ * @since Java 16
+ */
+public class GameLeaderboard {
+	/** The most results kept in each ranking */
+	public static final int SIZE = 100;
+	/** The most configurations ranked */
+	public static final int BOARDS = 4096;
+	/** Highest score first, then fastest, then first sent */
+	private static final Comparator<Entry> BY_SCORE = Comparator.comparingInt(Entry::score).reversed()
+			.thenComparingInt(Entry::time).thenComparingLong(Entry::order);
+	/** Fastest first, then highest score, then first sent */
+	private static final Comparator<Entry> BY_TIME = Comparator.comparingInt(Entry::time)
+			.thenComparing(Comparator.comparingInt(Entry::score).reversed()).thenComparingLong(Entry::order);
+	/** The rankings, by dimension and configuration hash, a hash of 0 is every configuration */
+	private final ConcurrentHashMap<Board, Ranking> rankings = new ConcurrentHashMap<Board, Ranking>();
+	/** Numbers results in the order they were added so equal results keep that order */
+	private final AtomicLong added = new AtomicLong();
+	/** The amount of configuration rankings, the dimension ones are not counted */
+	private final AtomicInteger boards = new AtomicInteger();
+
+	/**
+	 * Adds a result to the rankings of its configuration and its dimension, a
+	 * result without a valid dimension is not ranked
+	 *
+	 * @param name      The player's name
+	 * @param time      The time of the game in seconds
+	 * @param score     The score of the game
+	 * @param dimension The board dimension
+	 * @param hash      The configuration's hash, 0 if not known
+	 */
+	public void add(String name, int time, int score, int dimension, long hash) {
+		if (dimension <= 0 || dimension > GameBoard.MAX_DIMENSION) {
+			return;
+		}
+		Entry entry = new Entry(name, time, score, added.incrementAndGet());
+		ranking(dimension, 0).add(entry);
+		if (hash != 0) {
+			ranking(dimension, hash).add(entry);
+		}
+	}
+
+	/**
+	 * Gets the best results of a board
+	 *
+	 * @param dimension The board dimension
+	 * @param hash      The configuration's hash, 0 for every configuration of the
+	 *                  dimension
+	 * @param count     The most results wanted
+	 * @param byTime    Whether the fastest times are wanted instead of the best
+	 *                  scores
+	 * @return The results, best first
+	 */
+	public List<Entry> top(int dimension, long hash, int count, boolean byTime) {
+		Ranking ranking = rankings.get(new Board(dimension, hash));
+		ArrayList<Entry> top = new ArrayList<Entry>(Math.max(0, Math.min(count, SIZE)));
+		if (ranking == null) {
+			return top;
+		}
+		Iterator<Entry> entries = (byTime ? ranking.byTime : ranking.byScore).iterator();
+		while (top.size() < count && entries.hasNext()) {
+			top.add(entries.next());
+		}
+		return top;
+	}
+
+	/**
+	 * Gets the dimensions that have results, smallest first
+	 *
+	 * @return The dimensions
+	 */
+	public List<Integer> dimensions() {
+		ArrayList<Integer> dimensions = new ArrayList<Integer>();
+		for (Board board : rankings.keySet()) {
+			if (board.hash() == 0) {
+				dimensions.add(board.dimension());
+			}
+		}
+		dimensions.sort(null);
+		return dimensions;
+	}
+
+	/**
+	 * Gets a ranking, making it the first time
+	 *
+	 * @param dimension The board dimension
+	 * @param hash      The configuration's hash, 0 for every configuration
+	 * @return The ranking
+	 */
+	private Ranking ranking(int dimension, long hash) {
+		Board board = new Board(dimension, hash);
+		Ranking ranking = rankings.get(board);
+		if (ranking == null) {
+			ranking = rankings.computeIfAbsent(board, key -> {
+				if (hash != 0) {
+					boards.incrementAndGet();
+				}
+				return new Ranking();
+			});
+			if (boards.get() > BOARDS) {
+				evict();
+			}
+		}
+		return ranking;
+	}
+
+	/**
+	 * Removes the configuration rankings that went longest without a result until
+	 * an eighth of BOARDS is free, one thread at a time
+	 */
+	private synchronized void evict() {
+		int target = BOARDS - BOARDS / 8;
+		if (boards.get() <= BOARDS) {
+			// another thread already made room
+			return;
+		}
+		// sort on a copy of each order, results keep changing them while sorting
+		ArrayList<Map.Entry<Long, Board>> all = new ArrayList<Map.Entry<Long, Board>>(boards.get());
+		for (Map.Entry<Board, Ranking> ranked : rankings.entrySet()) {
+			if (ranked.getKey().hash() != 0) {
+				all.add(Map.entry(ranked.getValue().last, ranked.getKey()));
+			}
+		}
+		all.sort(Map.Entry.comparingByKey());
+		int i;
+		for (i = 0; i < all.size() && boards.get() > target; i++) {
+			if (rankings.remove(all.get(i).getValue()) != null) {
+				boards.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * One ranked result
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameLeaderboard
+	 * @param name  The player's name
+	 * @param time  The time of the game in seconds
+	 * @param score The score of the game
+	 * @param order When the result was added, earlier results rank first when
+	 *              equal
+	 */
+	public record Entry(String name, int time, int score, long order) {
+	}
+
+	/**
+	 * A board dimension and configuration
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameLeaderboard
+	 * @param dimension The board dimension
+	 * @param hash      The configuration's hash, 0 for every configuration
+	 */
+	private record Board(int dimension, long hash) {
+	}
+
+	/**
+	 * The best results of one board by score and by time
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameLeaderboard
+	 */
+	private static class Ranking {
+		/** The best scores */
+		final ConcurrentSkipListSet<Entry> byScore = new ConcurrentSkipListSet<Entry>(BY_SCORE);
+		/** The fastest times */
+		final ConcurrentSkipListSet<Entry> byTime = new ConcurrentSkipListSet<Entry>(BY_TIME);
+		/** The amount in byScore, the skip list counts by walking every entry */
+		final AtomicInteger scores = new AtomicInteger();
+		/** The amount in byTime */
+		final AtomicInteger times = new AtomicInteger();
+		/** The order of the last result added */
+		volatile long last;
+
+		/**
+		 * Adds a result to both orders
+		 *
+		 * @param entry The result
+		 */
+		void add(Entry entry) {
+			last = entry.order();
+			offer(byScore, scores, entry);
+			offer(byTime, times, entry);
+		}
+
+		/**
+		 * Adds a result to one order if it is good enough, dropping the worst once
+		 * there are more than SIZE
+		 *
+		 * @param ranked The order
+		 * @param size   The amount in the order
+		 * @param entry  The result
+		 */
+		private static void offer(ConcurrentSkipListSet<Entry> ranked, AtomicInteger size, Entry entry) {
+			if (size.get() >= SIZE) {
+				try {
+					if (ranked.comparator().compare(entry, ranked.last()) > 0) {
+						return;
+					}
+				} catch (NoSuchElementException e) {
+					// emptied meanwhile, add it
+				}
+			}
+			ranked.add(entry);
+			if (size.incrementAndGet() > SIZE && ranked.pollLast() != null) {
+				size.decrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,346 @@
+/*
+ * File name: GameLibrary.java
+ * Author: Mostapha A
+ * Purpose: Keeps the game configurations clients send so every client can fetch them
+ * Class list: GameServer.java, GameLibrary.java, Puzzle
+ */
+
+package piccross;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GameLibrary class keeps the game configurations sent to the server, each
+ * under the hash of its solution so the same puzzle sent by many clients is
+ * kept once and can be asked for by its id. A puzzle is only the same as a kept
+ * one when its cells are, a different puzzle with the same hash is kept under
+ * one of the next few ids instead. Puzzles can also be asked for by dimension,
+ * or the newest one like the server's single stored game before.<br>
+ * Reading never locks, a puzzle is found in a concurrent map and only has the
+ * time it was last used written. Puzzles are kept packed eight cells a byte,
+ * which is what the binary protocol sends, the text form is made the first time
+ * a text client asks for it.<br>
+ * Once there are more puzzles than the capacity, or they take more bytes than
+ * allowed, the ones used longest ago are removed together, so the work of
+ * finding them is shared by many additions
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java, GameCodec.java
+ * @since Java 16
+ */
+public class GameLibrary {
+	/** The most puzzles looked at when picking one of a dimension */
+	private static final int PICK = 64;
+	/** The most ids tried for a puzzle whose hash is taken by a different puzzle */
+	private static final int PROBES = 8;
+	/** The most puzzles kept */
+	private final int capacity;
+	/** The most bytes the kept puzzles may take */
+	private final long maxBytes;
+	/** The bytes the kept puzzles take, packed and as text */
+	private final AtomicLong bytes = new AtomicLong();
+	/** The puzzles, by hash */
+	private final ConcurrentHashMap<Long, Puzzle> puzzles = new ConcurrentHashMap<Long, Puzzle>();
+	/** The hashes of the puzzles of each dimension */
+	private final ConcurrentHashMap<Integer, Set<Long>> dimensions = new ConcurrentHashMap<Integer, Set<Long>>();
+	/** The newest puzzle added, null if none */
+	private volatile Puzzle newest;
+	/** The puzzles asked for and found */
+	private final LongAdder hits = new LongAdder();
+	/** The puzzles asked for and not found */
+	private final LongAdder misses = new LongAdder();
+	/** The puzzles removed to stay within the capacity */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates an empty library
+	 *
+	 * @param capacity The most puzzles kept
+	 * @param maxBytes The most bytes the puzzles may take
+	 */
+	public GameLibrary(int capacity, long maxBytes) {
+		this.capacity = capacity;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Adds a puzzle, if it is already kept the kept one is used and becomes the
+	 * newest
+	 *
+	 * @param board The puzzle's solution
+	 * @return The puzzle kept, null if every id it could have is taken by
+	 *         different puzzles
+	 */
+	public Puzzle add(GameBoard board) {
+		byte[] packed = GameCodec.toBytes(board);
+		long id = GameCodec.hash(board);
+		int probe;
+		for (probe = 0; probe < PROBES; probe++) {
+			Puzzle puzzle = puzzles.get(id);
+			if (puzzle == null) {
+				Puzzle made = new Puzzle(id, board.getDimension(), packed);
+				// used now, so making room does not remove it first
+				made.use();
+				puzzle = puzzles.putIfAbsent(id, made);
+				if (puzzle == null) {
+					added(made);
+					puzzle = made;
+				}
+			}
+			// the same hash is not enough, the cells must be the same too
+			if (Arrays.equals(puzzle.packed, packed)) {
+				puzzle.use();
+				newest = puzzle;
+				return puzzle;
+			}
+			id = id + 1 == 0 ? 1 : id + 1;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the newest puzzle
+	 *
+	 * @return The puzzle, null if there are none
+	 */
+	public Puzzle newest() {
+		return found(newest);
+	}
+
+	/**
+	 * Gets a puzzle by its id
+	 *
+	 * @param hash The puzzle's id
+	 * @return The puzzle, null if it is not kept
+	 */
+	public Puzzle byHash(long hash) {
+		return found(puzzles.get(hash));
+	}
+
+	/**
+	 * Gets one of the puzzles of a dimension, picked at random so clients asking
+	 * at once get different puzzles
+	 *
+	 * @param dimension The board dimension
+	 * @return The puzzle, null if there are none of the dimension
+	 */
+	public Puzzle byDimension(int dimension) {
+		Set<Long> hashes = dimensions.get(dimension);
+		Puzzle puzzle = null;
+		if (hashes != null) {
+			// only walk a few hashes, a removed puzzle's hash may still be in the set
+			int skip = ThreadLocalRandom.current().nextInt(PICK);
+			Iterator<Long> walk = hashes.iterator();
+			int i;
+			for (i = 0; i <= skip && walk.hasNext(); i++) {
+				Puzzle next = puzzles.get(walk.next());
+				if (next != null) {
+					puzzle = next;
+				}
+			}
+		}
+		return found(puzzle);
+	}
+
+	/**
+	 * Gets the amount of puzzles kept
+	 *
+	 * @return The puzzles
+	 */
+	public int size() {
+		return puzzles.size();
+	}
+
+	/**
+	 * Describes the library for the server console
+	 *
+	 * @return The description
+	 */
+	public String toString() {
+		return puzzles.size() + " puzzles kept of " + capacity + " in " + bytes.get() / 1024 + " KB, " + hits.sum()
+				+ " found, " + misses.sum() + " not found, " + evictions.sum() + " removed";
+	}
+
+	/**
+	 * Gets the bytes the kept puzzles take
+	 *
+	 * @return The bytes, packed and as text
+	 */
+	public long bytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Gets the amount of puzzles removed to stay within the capacity
+	 *
+	 * @return The puzzles removed
+	 */
+	public long evictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Counts the room a new puzzle takes and makes room if there is too little
+	 *
+	 * @param puzzle The puzzle added
+	 */
+	private void added(Puzzle puzzle) {
+		dimensions.computeIfAbsent(puzzle.dimension, key -> ConcurrentHashMap.newKeySet()).add(puzzle.hash);
+		if (bytes.addAndGet(puzzle.bytes()) > maxBytes || puzzles.size() > capacity) {
+			evict();
+		}
+	}
+
+	/**
+	 * Counts a puzzle asked for and marks it used
+	 *
+	 * @param puzzle The puzzle, null if none was found
+	 * @return The puzzle
+	 */
+	private Puzzle found(Puzzle puzzle) {
+		if (puzzle == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+			puzzle.use();
+		}
+		return puzzle;
+	}
+
+	/**
+	 * Removes the puzzles used longest ago until an eighth of the capacity and of
+	 * the bytes is free, one thread at a time
+	 */
+	private synchronized void evict() {
+		int target = capacity - capacity / 8;
+		long targetBytes = maxBytes - maxBytes / 8;
+		if (puzzles.size() <= capacity && bytes.get() <= maxBytes) {
+			// another thread already made room
+			return;
+		}
+		// sort on a copy of each time, readers keep changing them while sorting
+		ArrayList<Map.Entry<Long, Puzzle>> all = new ArrayList<Map.Entry<Long, Puzzle>>(puzzles.size());
+		for (Puzzle puzzle : puzzles.values()) {
+			all.add(Map.entry(puzzle.used, puzzle));
+		}
+		all.sort(Map.Entry.comparingByKey());
+		int i;
+		for (i = 0; i < all.size() && (puzzles.size() > target || bytes.get() > targetBytes); i++) {
+			Puzzle cold = all.get(i).getValue();
+			if (cold == newest) {
+				continue;
+			}
+			if (puzzles.remove(cold.hash, cold)) {
+				Set<Long> hashes = dimensions.get(cold.dimension);
+				if (hashes != null) {
+					hashes.remove(cold.hash);
+				}
+				bytes.addAndGet(-cold.bytes());
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * One kept puzzle
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameLibrary
+	 */
+	public static class Puzzle {
+		/** The puzzle's id, the hash of the solution unless a different puzzle had it */
+		final long hash;
+		/** The board dimension */
+		final int dimension;
+		/** The solution packed for the binary protocol */
+		private final byte[] packed;
+		/** The text form, made the first time it is asked for */
+		private volatile String text;
+		/** When the puzzle was last used, from System.nanoTime */
+		private volatile long used;
+
+		/**
+		 * Creates a puzzle
+		 *
+		 * @param hash      The puzzle's id
+		 * @param dimension The board dimension
+		 * @param packed    The packed solution
+		 */
+		Puzzle(long hash, int dimension, byte[] packed) {
+			this.hash = hash;
+			this.dimension = dimension;
+			this.packed = packed;
+		}
+
+		/**
+		 * Gets the puzzle's id
+		 *
+		 * @return The id, the hash of the solution unless a different puzzle had it
+		 */
+		public long getHash() {
+			return hash;
+		}
+
+		/**
+		 * Gets the board dimension
+		 *
+		 * @return The dimension
+		 */
+		public int getDimension() {
+			return dimension;
+		}
+
+		/**
+		 * Gets the solution packed for a frame, shared by every reply so it must not
+		 * be changed
+		 *
+		 * @return The packed solution
+		 */
+		public byte[] getPacked() {
+			return packed;
+		}
+
+		/**
+		 * Gets the solution as a configuration string
+		 *
+		 * @return The text form
+		 */
+		public String getText() {
+			String made = text;
+			if (made == null) {
+				// two threads may both make it, they make the same string
+				made = GameCodec.encode(GameCodec.fromBytes(packed));
+				text = made;
+			}
+			return made;
+		}
+
+		/**
+		 * Gets the bytes the puzzle takes, counting the text form as made even
+		 * before it is
+		 *
+		 * @return The bytes
+		 */
+		long bytes() {
+			return packed.length + 2L * GameCodec.textLength(dimension);
+		}
+
+		/**
+		 * Marks the puzzle used now
+		 */
+		void use() {
+			used = System.nanoTime();
+		}
+	}
+}
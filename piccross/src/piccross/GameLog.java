@@ -0,0 +1,135 @@
+/*
+ * File name: GameLog.java
+ * Author: Mostapha A
+ * Purpose: Writes log messages on a background thread
+ * Class list: GameServer.java, GameLog.java
+ */
+
+package piccross;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+/**
+ * GameLog class queues log messages and writes them in batches from its own
+ * thread, to the system console and optionally a GUI console on the event
+ * thread. Logging never waits, if the queue is full the message is dropped and
+ * counted so the amount lost is reported with the next batch
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java
+ * @since Java 16
+ */
+public class GameLog {
+	/** The most messages waiting to be written */
+	private static final int CAPACITY = 8192;
+	/** The most messages written together */
+	private static final int BATCH = 256;
+	/** The messages waiting to be written */
+	private final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<String>(CAPACITY);
+	/** The amount of messages dropped because the queue was full */
+	private final AtomicLong dropped = new AtomicLong();
+	/** The amount of messages queued */
+	private final AtomicLong queued = new AtomicLong();
+	/** The amount of messages written */
+	private volatile long written = 0;
+	/** The GUI console to also write to, null when there is no GUI */
+	private volatile JTextArea console;
+
+	/**
+	 * Creates the log and starts its writing thread
+	 *
+	 * @param name The name of the writing thread
+	 */
+	public GameLog(String name) {
+		Thread writer = new Thread(this::drain, name);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Sets a GUI console that messages are also appended to
+	 *
+	 * @param console The text area, or null for no GUI
+	 */
+	public void setConsole(JTextArea console) {
+		this.console = console;
+	}
+
+	/**
+	 * Queues a message, never waits
+	 *
+	 * @param message The message to write
+	 */
+	public void log(String message) {
+		if (queue.offer(message)) {
+			queued.incrementAndGet();
+		} else {
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Waits a short time for the queued messages to be written, used before the
+	 * program exits
+	 *
+	 * @param millis The most milliseconds to wait
+	 */
+	public void flush(long millis) {
+		long target = queued.get();
+		long end = System.currentTimeMillis() + millis;
+		while (written < target && System.currentTimeMillis() < end) {
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Writes the queued messages in batches, runs on the log's own thread
+	 */
+	private void drain() {
+		ArrayList<String> batch = new ArrayList<String>(BATCH);
+		StringBuilder text = new StringBuilder();
+		for (;;) {
+			try {
+				// wait for a message then take what else is waiting
+				String first = queue.poll(1, TimeUnit.SECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, BATCH - 1);
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			text.setLength(0);
+			long lost = dropped.getAndSet(0);
+			if (lost > 0) {
+				text.append(lost).append(" log messages dropped\n");
+			}
+			for (String message : batch) {
+				text.append(message).append('\n');
+			}
+			String output = text.toString();
+			System.out.print(output);
+			JTextArea area = console;
+			if (area != null) {
+				// Swing components are only changed on the event thread
+				SwingUtilities.invokeLater(() -> area.append(output));
+			}
+			written += batch.size();
+			batch.clear();
+		}
+	}
+}
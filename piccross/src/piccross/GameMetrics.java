@@ -0,0 +1,463 @@
+/*
+ * File name: GameMetrics.java
+ * Author: Mostapha A
+ * Purpose: Counts what the server does and shows it as text or on a local web page
+ * Class list: GameServer.java, GameNioServer.java, GameMetrics.java, Histogram
+ */
+
+package piccross;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * GameMetrics class keeps the numbers of the server: the messages of each type
+ * for each protocol version, how long handling them took, the connections open
+ * and accepted, the bytes in and out and the connections waiting to be
+ * accepted.<br>
+ * Recording never locks, counters are LongAdders and handling times go in a
+ * histogram of power of two buckets that are each an atomic counter, so every
+ * connection can record at once without waiting on the others. The numbers are
+ * only added up when they are read, by the Results button, the results command
+ * or the metrics page.<br>
+ * The metrics page is served on the loopback address only, in the Prometheus
+ * text format, at http://127.0.0.1:port/metrics
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java, GameProtocol.java
+ * @since Java 16
+ */
+public class GameMetrics {
+	/** The end protocol */
+	public static final int P0 = 0;
+	/** A game configuration */
+	public static final int P1 = 1;
+	/** A name */
+	public static final int P2 = 2;
+	/** A time and score */
+	public static final int P3 = 3;
+	/** A request for a game configuration */
+	public static final int P4 = 4;
+	/** Several times and scores */
+	public static final int P5 = 5;
+	/** A request for the leaderboard */
+	public static final int P6 = 6;
+	/** Asking for a protocol version */
+	public static final int HELLO = 7;
+	/** Anything else */
+	public static final int OTHER = 8;
+	/** The name of each message type, by number */
+	private static final String[] TYPES = { "P0", "P1", "P2", "P3", "P4", "P5", "P6", "V", "other" };
+	/** The protocol versions counted */
+	private static final int VERSIONS = 2;
+	/** The messages handled, by protocol version then type */
+	private static final LongAdder[][] messages = new LongAdder[VERSIONS][TYPES.length];
+	/** The time spent handling messages, by protocol version then type */
+	private static final Histogram[][] handling = new Histogram[VERSIONS][TYPES.length];
+	/** The connections accepted since the server started */
+	private static final LongAdder accepted = new LongAdder();
+	/** The port whose waiting connections are counted, -1 before the server starts */
+	private static volatile int listening = -1;
+	/** The metrics page, null if it is not served */
+	private static HttpServer page;
+
+	static {
+		int version, type;
+		for (version = 0; version < VERSIONS; version++) {
+			for (type = 0; type < TYPES.length; type++) {
+				messages[version][type] = new LongAdder();
+				handling[version][type] = new Histogram();
+			}
+		}
+	}
+
+	/**
+	 * Not created, only has static methods
+	 */
+	private GameMetrics() {
+	}
+
+	/**
+	 * Gets the number of a text message type
+	 *
+	 * @param type The type in the message, like P1 or V
+	 * @return The type number, OTHER if it is not known
+	 */
+	public static int type(String type) {
+		int i;
+		for (i = 0; i < OTHER; i++) {
+			if (TYPES[i].equals(type)) {
+				return i;
+			}
+		}
+		return OTHER;
+	}
+
+	/**
+	 * Gets the number of a binary message type
+	 *
+	 * @param opcode The opcode of the frame
+	 * @return The type number, OTHER if it is not known
+	 */
+	public static int type(int opcode) {
+		return opcode >= P0 && opcode <= P6 ? opcode : OTHER;
+	}
+
+	/**
+	 * Counts a handled message
+	 *
+	 * @param version The protocol version, 1 or 2
+	 * @param type    The type number
+	 * @param nanos   The time spent handling it
+	 */
+	public static void handled(int version, int type, long nanos) {
+		int v = version == GameProtocol.VERSION ? 1 : 0;
+		messages[v][type].increment();
+		handling[v][type].record(nanos);
+	}
+
+	/**
+	 * Counts an accepted connection
+	 */
+	public static void accepted() {
+		accepted.increment();
+	}
+
+	/**
+	 * Sets the port whose waiting connections are counted
+	 *
+	 * @param port The port the server listens on
+	 */
+	public static void listening(int port) {
+		listening = port;
+	}
+
+	/**
+	 * Serves the metrics page on the loopback address
+	 *
+	 * @param port The port of the page
+	 * @return Whether the page is served
+	 */
+	public static synchronized boolean serve(int port) {
+		if (page != null) {
+			return true;
+		}
+		try {
+			page = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		} catch (IOException e) {
+			System.out.println(e);
+			return false;
+		}
+		page.createContext("/metrics", GameMetrics::send);
+		// one daemon thread is plenty for a page read every few seconds
+		page.setExecutor(Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "piccross-metrics");
+			thread.setDaemon(true);
+			return thread;
+		}));
+		page.start();
+		return true;
+	}
+
+	/**
+	 * Sends the metrics page
+	 *
+	 * @param exchange The request
+	 * @throws IOException If the page cannot be sent
+	 */
+	private static void send(HttpExchange exchange) throws IOException {
+		byte[] body = prometheus().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Gets the connections waiting to be accepted from the system, only Linux
+	 * shows this
+	 *
+	 * @return The connections waiting, -1 if it is not known
+	 */
+	public static int backlog() {
+		int port = listening;
+		if (port < 0) {
+			return -1;
+		}
+		// a listening socket's receive queue is its connections waiting to be accepted
+		String local = String.format(":%04X", port);
+		int waiting = -1;
+		for (String table : new String[] { "/proc/net/tcp", "/proc/net/tcp6" }) {
+			List<String> lines;
+			try {
+				lines = Files.readAllLines(Path.of(table));
+			} catch (IOException | SecurityException e) {
+				continue;
+			}
+			for (String line : lines) {
+				String[] fields = line.trim().split("\\s+");
+				// the fields are number, local address, remote address, state, send:receive queue
+				if (fields.length > 4 && fields[1].endsWith(local) && fields[3].equals("0A")) {
+					String queue = fields[4].substring(fields[4].indexOf(':') + 1);
+					waiting = Math.max(0, waiting) + Integer.parseInt(queue, 16);
+				}
+			}
+		}
+		return waiting;
+	}
+
+	/**
+	 * Describes the metrics in a few lines for the server console
+	 *
+	 * @return The lines
+	 */
+	public static String[] summary() {
+		StringBuilder counts = new StringBuilder("Messages:");
+		StringBuilder times = new StringBuilder("Handling time (p50/p99/max us):");
+		int version, type;
+		for (type = 0; type < TYPES.length; type++) {
+			long count = 0;
+			Histogram all = new Histogram();
+			for (version = 0; version < VERSIONS; version++) {
+				count += messages[version][type].sum();
+				all.add(handling[version][type]);
+			}
+			if (count == 0) {
+				continue;
+			}
+			counts.append(' ').append(TYPES[type]).append('=').append(count);
+			times.append(' ').append(TYPES[type]).append('=').append(all.percentile(0.5) / 1000).append('/')
+					.append(all.percentile(0.99) / 1000).append('/').append(all.max() / 1000);
+		}
+		int waiting = backlog();
+		return new String[] {
+				"Connections: " + GameServer.nclients.get() + " open, " + accepted.sum() + " accepted, "
+						+ (waiting < 0 ? "unknown" : Integer.toString(waiting)) + " waiting to be accepted",
+				counts.toString(), times.toString(),
+				"Bytes: " + (GameProtocol.V1.getBytesIn() + GameProtocol.V2.getBytesIn()) + " in, "
+						+ (GameProtocol.V1.getBytesOut() + GameProtocol.V2.getBytesOut()) + " out" };
+	}
+
+	/**
+	 * Describes the metrics in the Prometheus text format
+	 *
+	 * @return The page
+	 */
+	public static String prometheus() {
+		StringBuilder out = new StringBuilder(8192);
+		out.append("# HELP piccross_messages_total Messages handled\n");
+		out.append("# TYPE piccross_messages_total counter\n");
+		int version, type;
+		for (version = 0; version < VERSIONS; version++) {
+			for (type = 0; type < TYPES.length; type++) {
+				out.append("piccross_messages_total").append(labels(version, type)).append(' ')
+						.append(messages[version][type].sum()).append('\n');
+			}
+		}
+
+		out.append("# HELP piccross_handling_seconds Time spent handling a message\n");
+		out.append("# TYPE piccross_handling_seconds histogram\n");
+		for (version = 0; version < VERSIONS; version++) {
+			for (type = 0; type < TYPES.length; type++) {
+				handling[version][type].prometheus(out, "piccross_handling_seconds", version, type);
+			}
+		}
+
+		gauge(out, "piccross_connections_open", "Connections open", GameServer.nclients.get());
+		out.append("# HELP piccross_connections_accepted_total Connections accepted\n");
+		out.append("# TYPE piccross_connections_accepted_total counter\n");
+		out.append("piccross_connections_accepted_total ").append(accepted.sum()).append('\n');
+		gauge(out, "piccross_accept_backlog", "Connections waiting to be accepted, -1 if not known", backlog());
+
+		out.append("# HELP piccross_bytes_total Protocol bytes received and sent\n");
+		out.append("# TYPE piccross_bytes_total counter\n");
+		GameProtocol.Stats[] stats = { GameProtocol.V1, GameProtocol.V2 };
+		for (version = 0; version < VERSIONS; version++) {
+			out.append("piccross_bytes_total{protocol=\"").append(version + 1).append("\",direction=\"in\"} ")
+					.append(stats[version].getBytesIn()).append('\n');
+			out.append("piccross_bytes_total{protocol=\"").append(version + 1).append("\",direction=\"out\"} ")
+					.append(stats[version].getBytesOut()).append('\n');
+		}
+
+		gauge(out, "piccross_library_puzzles", "Game configurations kept", GameServer.library.size());
+		gauge(out, "piccross_library_bytes", "Bytes the game configurations kept take", GameServer.library.bytes());
+		out.append("# HELP piccross_library_evictions_total Game configurations removed to make room\n");
+		out.append("# TYPE piccross_library_evictions_total counter\n");
+		out.append("piccross_library_evictions_total ").append(GameServer.library.evictions()).append('\n');
+
+		GameResults results = GameServer.gameResults;
+		if (results != null) {
+			out.append("# HELP piccross_results_total Results kept in the results file\n");
+			out.append("# TYPE piccross_results_total counter\n");
+			out.append("piccross_results_total ").append(results.size()).append('\n');
+			out.append("# HELP piccross_results_commits_total Times the results file was written to the disk\n");
+			out.append("# TYPE piccross_results_commits_total counter\n");
+			out.append("piccross_results_commits_total ").append(results.commits()).append('\n');
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Adds a gauge to a page
+	 *
+	 * @param out   The page
+	 * @param name  The metric name
+	 * @param help  What it measures
+	 * @param value The value
+	 */
+	private static void gauge(StringBuilder out, String name, String help, long value) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(" gauge\n");
+		out.append(name).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * Gets the labels of a protocol version and message type
+	 *
+	 * @param version The protocol version index
+	 * @param type    The type number
+	 * @return The labels in braces
+	 */
+	private static String labels(int version, int type) {
+		return "{protocol=\"" + (version + 1) + "\",message=\"" + TYPES[type] + "\"}";
+	}
+
+	/**
+	 * A histogram of times in power of two buckets, bucket i counts times below
+	 * 2^i nanoseconds. Each bucket is an atomic counter so recording never locks,
+	 * and reading adds up the buckets as they are at that moment
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameMetrics
+	 */
+	static class Histogram {
+		/** The amount of buckets, the last one holds anything from about 9 minutes */
+		private static final int BUCKETS = 40;
+		/** The first bucket shown on the metrics page, 1 microsecond */
+		private static final int FIRST_SHOWN = 10;
+		/** The count in each bucket */
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		/** The total of every time recorded */
+		private final LongAdder total = new LongAdder();
+
+		/**
+		 * Records a time
+		 *
+		 * @param nanos The time in nanoseconds
+		 */
+		void record(long nanos) {
+			int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+			buckets.incrementAndGet(bucket);
+			total.add(nanos);
+		}
+
+		/**
+		 * Adds another histogram's counts to this one
+		 *
+		 * @param other The other histogram
+		 */
+		void add(Histogram other) {
+			int i;
+			for (i = 0; i < BUCKETS; i++) {
+				buckets.addAndGet(i, other.buckets.get(i));
+			}
+			total.add(other.total.sum());
+		}
+
+		/**
+		 * Gets a percentile, as the top of the bucket it falls in so it is never
+		 * under the real value by more than a factor of two
+		 *
+		 * @param fraction The percentile, 0.99 for the 99th
+		 * @return The time in nanoseconds, 0 if nothing was recorded
+		 */
+		long percentile(double fraction) {
+			long[] counts = counts();
+			long count = 0;
+			for (long c : counts) {
+				count += c;
+			}
+			long rank = (long) Math.ceil(fraction * count);
+			long seen = 0;
+			int i;
+			for (i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank && seen > 0) {
+					return 1L << i;
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Gets the top of the highest bucket used
+		 *
+		 * @return The time in nanoseconds, 0 if nothing was recorded
+		 */
+		long max() {
+			int i;
+			for (i = BUCKETS - 1; i >= 0; i--) {
+				if (buckets.get(i) > 0) {
+					return 1L << i;
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Reads every bucket once
+		 *
+		 * @return The count of each bucket
+		 */
+		private long[] counts() {
+			long[] counts = new long[BUCKETS];
+			int i;
+			for (i = 0; i < BUCKETS; i++) {
+				counts[i] = buckets.get(i);
+			}
+			return counts;
+		}
+
+		/**
+		 * Adds the histogram to a page with cumulative buckets in seconds
+		 *
+		 * @param out     The page
+		 * @param name    The metric name
+		 * @param version The protocol version index
+		 * @param type    The type number
+		 */
+		void prometheus(StringBuilder out, String name, int version, int type) {
+			long[] counts = counts();
+			String label = "protocol=\"" + (version + 1) + "\",message=\"" + TYPES[type] + "\"";
+			long cumulative = 0;
+			int i;
+			for (i = 0; i < BUCKETS; i++) {
+				cumulative += counts[i];
+				if (i >= FIRST_SHOWN && i < BUCKETS - 1) {
+					out.append(name).append("_bucket{").append(label).append(",le=\"")
+							.append((double) (1L << i) / 1e9).append("\"} ").append(cumulative).append('\n');
+				}
+			}
+			out.append(name).append("_bucket{").append(label).append(",le=\"+Inf\"} ").append(cumulative)
+					.append('\n');
+			out.append(name).append("_sum{").append(label).append("} ").append(total.sum() / 1e9).append('\n');
+			out.append(name).append("_count{").append(label).append("} ").append(cumulative).append('\n');
+		}
+	}
+}
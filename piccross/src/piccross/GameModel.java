@@ -7,9 +7,9 @@
 
 package piccross;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
 
 /**
  * GameModel class contains game data
@@ -22,19 +22,23 @@ import java.util.TimerTask;
 public class GameModel {
 	/** The board dimension */
 	private int dimension = 5;
-	/** The board array representation */
-	private Integer[][] board;
-	/** The board selection array representation */
-	private Integer[][] selectedBoard;
-	/** The string with the solution */
+	/** The packed board solution and selection representation */
+	private GameBoard board;
+	/** The string with the solution, null when the board changed and it must be made again */
 	private String configString = "0";
+	/** The hints for each row, each array is as long as the amount of hints */
+	private int[][] rowHints = new int[0][];
+	/** The hints for each column, each array is as long as the amount of hints */
+	private int[][] columnHints = new int[0][];
+	/** Holds the hints of the line being counted */
+	private int[] hintBuffer = new int[0];
+	/** The solver that checks generated solutions have one answer */
+	private GameSolver solver;
 
-	/** The starting seconds for timer */
-	private int seconds = 0;
-	/** Timer initialization */
-	private Timer timer = new Timer();
-	/** The timer task initialization */
-	private TimerTask timerTask;
+	/** Times the game being played */
+	private final GameClock clock = new GameClock();
+	/** Whether the clock has been started for a game, generating models never start it */
+	private boolean timing = false;
 
 	/**
 	 * Default game model constructor
@@ -44,21 +48,20 @@ public class GameModel {
 	}
 
 	/**
-	 * Generates a solution string based on dimensions
+	 * Generates a solution string based on dimensions, the solution is checked
+	 * with the solver so that the hints lead to only one answer
 	 */
 	public void generateString() {
 		int column = 0;
 		int row = 0;
 		// create a random object to randomize game solution
 		Random rd = new Random();
-		// reset current string
-		configString = "";
-		// temporary array and booleans for validation
-		int[][] stringArray = new int[dimension][dimension];
+		// temporary board and booleans for validation
+		GameBoard candidate = new GameBoard(dimension);
 		boolean rowCheck = false;
 		boolean colCheck = false;
 
-		// loop through dimension, generating a string for solution
+		// loop through dimension, generating a random solution
 		for (row = 0; row < dimension; row++) {
 			// reset boolean checks
 			rowCheck = false;
@@ -66,88 +69,159 @@ public class GameModel {
 				colCheck = false;
 				// check that each column has at least one 1, otherwise generate randoms
 				if (row == dimension - 1) {
-					// loop through the row
+					// loop through the column
 					for (int i = 0; i < dimension - 1; i++) {
-						// check if there is a 1 in the row
-						if (stringArray[column][i] == 1) {
+						// check if there is a 1 in the column
+						if (candidate.getSolution(column, i) == 1) {
 							colCheck = true;
 						}
 					}
-					// if row check is false make last column in row a 1, otherwise randomise
+					// if column check is false make last row in column a 1, otherwise randomise
 					if (colCheck == false) {
-						// set string and checks
+						// set solution and checks
 						colCheck = true;
-						configString = configString + "1";
-						stringArray[column][row] = 1;
-					} else {
-						if (rd.nextBoolean() == true) {
-							// set string and checks
-							rowCheck = true;
-							configString = configString + "1";
-							stringArray[column][row] = 1;
-						} else if (column == dimension - 1 && rowCheck == false) {
-							// if there isn't at least one 1 in row, make last column in row a 1
-							rowCheck = true;
-							configString = configString + "1";
-							stringArray[column][row] = 1;
-						} else {
-							// set string and checks
-							configString = configString + "0";
-							stringArray[column][row] = 0;
-						}
+						candidate.setSolution(column, row, true);
+					} else if (rd.nextBoolean() == true) {
+						// set solution and checks
+						rowCheck = true;
+						candidate.setSolution(column, row, true);
+					} else if (column == dimension - 1 && rowCheck == false) {
+						// if there isn't at least one 1 in row, make last column in row a 1
+						rowCheck = true;
+						candidate.setSolution(column, row, true);
 					}
 				} else {
 					// generate a random boolean, true is 1
 					if (rd.nextBoolean() == true) {
-						// set string and checks
+						// set solution and checks
 						rowCheck = true;
-						configString = configString + "1";
-						stringArray[column][row] = 1;
+						candidate.setSolution(column, row, true);
 					} else if (column == dimension - 1 && rowCheck == false) {
 						// if there isn't at least one 1 in row, make last column in row a 1
 						rowCheck = true;
-						configString = configString + "1";
-						stringArray[column][row] = 1;
-					} else {
-						// set string and checks
-						configString = configString + "0";
-						stringArray[column][row] = 0;
+						candidate.setSolution(column, row, true);
 					}
 				}
 			}
-			// add a comma to the string
-			if (row != dimension - 1) {
-				configString = configString + ",";
+		}
+
+		// repair the solution until the hints give only one answer, each repair fills
+		// cells the solver could not find so a full board is reached at worst
+		if (solver == null) {
+			solver = new GameSolver(dimension);
+		}
+		while (!solver.solve(candidate)) {
+			if (solver.repair(candidate) == 0) {
+				break;
 			}
 		}
-		System.out.println(configString);
+
+		// create the configuration string from the solution
+		configString = GameCodec.encode(candidate);
 	}
 
 	/**
-	 * Generates a 2d array representing the board solution based on the configuration string
+	 * Generates the board solution based on the configuration string, either the
+	 * text or compact form
 	 * @param string The configuration string to generate board out of
 	 */
 	public void generateBoard(String string) {
-		configString = string;
-		// split the config string based on commas
-		String[] rows = string.split(",");
-		dimension = rows[0].length();
-		// reset / make a new board representation
-		board = new Integer[dimension][dimension];
-		selectedBoard = new Integer[dimension][dimension];
-		
-		int column = 0;
-		int row = 0;
+		// read the board straight from the string, all cells start unselected
+		board = GameCodec.decode(string);
+		dimension = board.getDimension();
+		// keep the text form so the string can be shown and sent as before
+		if (string.indexOf(':') >= 0) {
+			configString = GameCodec.encode(board);
+		} else {
+			configString = string;
+		}
+		// work out all the hints once for the new board
+		computeHints();
+	}
 
-		// loop through strings and create board
-		for(row = 0; row < dimension; row++) {
-			for(column = 0; column < dimension; column++) {
-				// loop through each column string and put corresponding value in the board
-				board[column][row] = Integer.parseInt(Character.toString(rows[row].charAt(column)));
-				// set selection to -1 for unselected
-				selectedBoard[column][row] = -1;
+	/**
+	 * Makes a new board with every cell false/0, used when drawing a game
+	 * @param newDimension The dimension of the new board
+	 */
+	public void newBoard(int newDimension) {
+		dimension = newDimension;
+		board = new GameBoard(dimension);
+		configString = null;
+		computeHints();
+	}
+
+	/**
+	 * Changes the solution of one cell, only the hints of its row and column are
+	 * worked out again
+	 * @param column The cell's column
+	 * @param row The cell's row
+	 * @param filled Whether the cell is true/1
+	 */
+	public void setSolution(int column, int row, boolean filled) {
+		board.setSolution(column, row, filled);
+		configString = null;
+		rowHints[row] = countHints(row, true);
+		columnHints[column] = countHints(column, false);
+	}
+
+	/**
+	 * Gets the hints of a row
+	 * @param row The row
+	 * @return The hints in order, empty if the row has no true cells
+	 */
+	public int[] getRowHints(int row) {
+		return rowHints[row];
+	}
+
+	/**
+	 * Gets the hints of a column
+	 * @param column The column
+	 * @return The hints in order, empty if the column has no true cells
+	 */
+	public int[] getColumnHints(int column) {
+		return columnHints[column];
+	}
+
+	/**
+	 * Works out the hints of every row and column of the board
+	 */
+	private void computeHints() {
+		rowHints = new int[dimension][];
+		columnHints = new int[dimension][];
+		// a line of n cells has at most (n + 1) / 2 hints
+		hintBuffer = new int[(dimension + 1) / 2];
+		int i;
+		for (i = 0; i < dimension; i++) {
+			rowHints[i] = countHints(i, true);
+			columnHints[i] = countHints(i, false);
+		}
+	}
+
+	/**
+	 * Counts the runs of true cells in a row or column
+	 * @param line The row or column number
+	 * @param isRow Whether the line is a row
+	 * @return The hints in order
+	 */
+	private int[] countHints(int line, boolean isRow) {
+		int count = 0;
+		int run = 0;
+		int i;
+		for (i = 0; i < dimension; i++) {
+			int cell = isRow ? board.getSolution(i, line) : board.getSolution(line, i);
+			if (cell == 1) {
+				run++;
+			} else if (run > 0) {
+				// the run ended, store it
+				hintBuffer[count++] = run;
+				run = 0;
 			}
 		}
+		// store a run that reaches the end of the line
+		if (run > 0) {
+			hintBuffer[count++] = run;
+		}
+		return Arrays.copyOf(hintBuffer, count);
 	}
 	
 	/**
@@ -155,22 +229,38 @@ public class GameModel {
 	 * @return The configuration string
 	 */
 	public String getString() {
+		// make the string again if the board was changed cell by cell
+		if (configString == null) {
+			configString = GameCodec.encode(board);
+		}
 		return configString;
 	}
 	
 	/**
-	 * Resets the time to 0
+	 * Returns a hash of the current configuration, read from the configuration
+	 * string since generateString makes a new string without a new board
+	 * @return The hash, the same for the same solution, 0 if there is no
+	 *         configuration
 	 */
-	public void resetTime() {
-		seconds = 0;
+	public long getHash() {
+		String config = getString();
+		return config.equals("0") ? 0 : GameCodec.hash(GameCodec.decode(config));
 	}
-	
+
 	/**
 	 * Returns the current time
 	 * @return The time in seconds
 	 */
 	public int returnTime() {
-		return seconds;
+		return clock.getSeconds();
+	}
+
+	/**
+	 * Returns the current time to the millisecond
+	 * @return The time in milliseconds
+	 */
+	public long returnMillis() {
+		return clock.getMillis();
 	}
 
 	/**
@@ -187,19 +277,20 @@ public class GameModel {
 		// 2 = incorrect mark(false/0) or selection(true/1)
 
 		// select the chosen button accordingly, return associated number
-		if ((board[column][row] == 1) && (markOn == false)) {
+		int solution = board.getSolution(column, row);
+		int selection;
+		if ((solution == 1) && (markOn == false)) {
 			// if mark is unselected, and button is true set to 1 (correct selection/true)
-			selectedBoard[column][row] = 1;
-			return 1;
-		} else if ((board[column][row] == 0) && (markOn == true)) {
+			selection = 1;
+		} else if ((solution == 0) && (markOn == true)) {
 			// if mark is selected, and button is false set to 0 (correct mark/false)
-			selectedBoard[column][row] = 0;
-			return 0;
+			selection = 0;
 		} else {
 			// otherwise set to 2 (incorrect)
-			selectedBoard[column][row] = 2;
-			return 2;
+			selection = 2;
 		}
+		board.setSelection(column, row, selection);
+		return selection;
 	}
 	
 	/**
@@ -226,7 +317,17 @@ public class GameModel {
 	 */
 	public int checkButtonSelected(int column, int row) {
 		// return the provided buttons status
-		return (selectedBoard[column][row]);
+		return board.getSelection(column, row);
+	}
+
+	/**
+	 * Gets every button with a selection status, so they can be changed without
+	 * checking every button
+	 * @param selection 0 correct mark, 1 correct selection, 2 incorrect
+	 * @return The buttons as row * dimension + column, must not be changed
+	 */
+	public BitSet getSelected(int selection) {
+		return board.getCells(selection);
 	}
 
 	/**
@@ -237,7 +338,7 @@ public class GameModel {
 	 */
 	public int checkSolution(int column, int row) {
 		// return the provided buttons solution
-		return (board[column][row]);
+		return board.getSolution(column, row);
 	}
 
 	/**
@@ -245,34 +346,44 @@ public class GameModel {
 	 */
 	public void reset() {
 		// set each button to unselected
-		int column = 0;
-		int row = 0;
-		for (row = 0; row < dimension; row++) {
-			for (column = 0; column < dimension; column++) {
-				selectedBoard[column][row] = -1;
-			}
+		if (board != null) {
+			board.clearSelection();
+		}
+		// the new attempt is timed from 0
+		if (timing) {
+			clock.start();
 		}
-		seconds = 0;
 	}
 
 	/**
-	 * Starts and keeps track of the timer on the GUI
+	 * Starts timing a game from 0 and shows the time on the GUI, starting again
+	 * replaces the last game's time
 	 * @param gameView The GameView that will update the timer for
 	 */
 	public void startTimer(GameView gameView) {
-		// Timer task
-		timerTask = new TimerTask() {
-			public void run() {
-				seconds++;
-				// Update your interface
-				gameView.updateTimer(seconds);
-			}
-		};
-		try {
-			timer.scheduleAtFixedRate(timerTask, 0, 1000);
-		} catch (Exception e) {
-			// Eventual treatment
+		clock.setDisplay(gameView::updateTimer);
+		clock.start();
+		timing = true;
+	}
 
-		}
+	/**
+	 * Pauses the timer, used while the game is not being played
+	 */
+	public void pauseTimer() {
+		clock.pause();
+	}
+
+	/**
+	 * Resumes a paused timer
+	 */
+	public void resumeTimer() {
+		clock.resume();
+	}
+
+	/**
+	 * Stops the timer at the end of a game, keeping the time reached
+	 */
+	public void stopTimer() {
+		clock.stop();
 	}
 }
@@ -0,0 +1,363 @@
+/*
+ * File name: GameNioServer.java
+ * Author: Mostapha A
+ * Purpose: Serves every client from one thread with a selector
+ * Class list: GameServer.java, GameNioServer.java
+ */
+
+package piccross;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * GameNioServer class is a non-blocking version of the server's connection
+ * handling. One thread accepts, reads and writes for every client using a
+ * selector, so clients do not each need a thread. Messages are lines of text in
+ * the id#Pn#data format, or binary frames once a client asks for protocol
+ * version 2, and are handled by the same GameServer.ClientSession as the thread
+ * per connection mode
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java
+ * @since Java 16
+ */
+public class GameNioServer implements Runnable {
+	/** The longest line a client may send, a 200x200 configuration fits easily */
+	private static final int MAX_LINE = 1 << 20;
+	/** The size of each client's read buffer */
+	private static final int READ_BUFFER = 4096;
+	/** The port to listen on */
+	private final int port;
+	/** The selector that watches every channel */
+	private Selector selector;
+	/** The channel that accepts new clients */
+	private ServerSocketChannel serverChannel;
+
+	/**
+	 * Creates the server and opens the port so errors are reported right away
+	 *
+	 * @param port The port to listen on
+	 * @throws IOException If the port cannot be opened
+	 */
+	public GameNioServer(int port) throws IOException {
+		this.port = port;
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(port));
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * Gets the port the server listens on
+	 *
+	 * @return The port number
+	 */
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * Waits for channels to be ready and handles them until the thread is
+	 * interrupted
+	 */
+	public void run() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				selector.select();
+			} catch (IOException e) {
+				System.out.println(e);
+				return;
+			}
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				if (key.isValid() && key.isAcceptable()) {
+					try {
+						accept();
+					} catch (IOException e) {
+						// only the new client is lost, keep accepting
+						System.out.println(e);
+					}
+					continue;
+				}
+				try {
+					if (key.isValid() && key.isReadable()) {
+						read(key);
+					}
+					if (key.isValid() && key.isWritable()) {
+						flush(key);
+					}
+				} catch (IOException e) {
+					// the client dropped, close their channel
+					System.out.println(e);
+					close(key);
+				} catch (RuntimeException e) {
+					// handling this client failed, only they are dropped and the loop goes on
+					GameServer.write("Client " + ((Client) key.attachment()).session.clientid + " failed: " + e);
+					close(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Accepts a new client and sends them their client number
+	 *
+	 * @throws IOException If the client cannot be set up
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		GameServer.nclients.incrementAndGet();
+		GameMetrics.accepted();
+		GameServer.write("Connecting " + channel.socket().getInetAddress() + " in port " + channel.socket().getPort());
+
+		Client client = new Client(new GameServer.ClientSession(GameServer.nclient.incrementAndGet(),
+				channel.socket().getInetAddress().toString()));
+		SelectionKey key = channel.register(selector, SelectionKey.OP_READ, client);
+		// send the client their client number
+		send(key, client.session.clientid.toString());
+	}
+
+	/**
+	 * Reads what a client sent and handles every complete line
+	 *
+	 * @param key The client's key
+	 * @throws IOException If reading fails
+	 */
+	private void read(SelectionKey key) throws IOException {
+		SocketChannel channel = (SocketChannel) key.channel();
+		Client client = (Client) key.attachment();
+		int count = channel.read(client.input);
+		if (count < 0) {
+			// the client dropped without the end protocol
+			close(key);
+			return;
+		}
+
+		// split what was read into lines
+		client.input.flip();
+		while (client.input.hasRemaining()) {
+			if (client.binary) {
+				// the rest is frames
+				if (!readFrames(key, client)) {
+					return;
+				}
+				break;
+			}
+			byte b = client.input.get();
+			if (b == '\n') {
+				String line = client.line.toString(StandardCharsets.UTF_8);
+				client.line.reset();
+				if (!handleLine(key, client, line)) {
+					break;
+				}
+				client.binary = client.session.version == GameProtocol.VERSION;
+			} else if (b != '\r') {
+				client.line.write(b);
+				if (client.line.size() > MAX_LINE) {
+					GameServer.write("Client " + client.session.clientid + " sent a line that is too long");
+					close(key);
+					return;
+				}
+			}
+		}
+		client.input.clear();
+	}
+
+	/**
+	 * Adds what was read to the client's frame buffer and handles every complete
+	 * frame
+	 *
+	 * @param key    The client's key
+	 * @param client The client
+	 * @return Whether more frames should be read from the client
+	 * @throws IOException If replying fails
+	 */
+	private boolean readFrames(SelectionKey key, Client client) throws IOException {
+		ByteBuffer frames = client.frameSpace(client.input.remaining());
+		frames.put(client.input);
+		frames.flip();
+		while (frames.remaining() >= Integer.BYTES) {
+			// wait for the whole frame before handling it
+			int length = frames.getInt(frames.position());
+			if (length < GameProtocol.HEADER || length > GameProtocol.MAX_FRAME) {
+				GameServer.write("Client " + client.session.clientid + " sent an invalid frame");
+				close(key);
+				return false;
+			}
+			if (frames.remaining() < Integer.BYTES + length) {
+				break;
+			}
+			frames.getInt();
+			GameProtocol.Frame frame = GameProtocol.fromBuffer(frames, length);
+			if (frame.opcode() == GameProtocol.P0) {
+				// reply then close once the reply is written
+				client.closing = true;
+				send(key, GameProtocol.toBuffer(client.session.handle(frame)));
+				return false;
+			}
+			send(key, GameProtocol.toBuffer(client.session.handle(frame)));
+		}
+		frames.compact();
+		return true;
+	}
+
+	/**
+	 * Handles one line from a client
+	 *
+	 * @param key    The client's key
+	 * @param client The client
+	 * @param line   The line received
+	 * @return Whether more lines should be read from the client
+	 * @throws IOException If replying fails
+	 */
+	private boolean handleLine(SelectionKey key, Client client, String line) throws IOException {
+		if (client.session.isClosing(line)) {
+			// reply then close once the reply is written
+			SocketChannel channel = (SocketChannel) key.channel();
+			client.closing = true;
+			send(key, client.session.closingReply(channel.socket().getInetAddress().toString()));
+			return false;
+		}
+		send(key, client.session.handle(line));
+		return true;
+	}
+
+	/**
+	 * Queues a line to be written to a client and tries to write it now
+	 *
+	 * @param key  The client's key
+	 * @param line The line to send
+	 * @throws IOException If writing fails
+	 */
+	private void send(SelectionKey key, String line) throws IOException {
+		send(key, ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Queues bytes to be written to a client and tries to write them now
+	 *
+	 * @param key    The client's key
+	 * @param buffer The bytes to send
+	 * @throws IOException If writing fails
+	 */
+	private void send(SelectionKey key, ByteBuffer buffer) throws IOException {
+		Client client = (Client) key.attachment();
+		client.output.add(buffer);
+		flush(key);
+	}
+
+	/**
+	 * Writes as much queued output as the channel takes, waiting for the channel
+	 * to be writable again if it is full
+	 *
+	 * @param key The client's key
+	 * @throws IOException If writing fails
+	 */
+	private void flush(SelectionKey key) throws IOException {
+		SocketChannel channel = (SocketChannel) key.channel();
+		Client client = (Client) key.attachment();
+		while (!client.output.isEmpty()) {
+			ByteBuffer buffer = client.output.peek();
+			channel.write(buffer);
+			if (buffer.hasRemaining()) {
+				// the channel is full, continue when it can be written
+				key.interestOps(SelectionKey.OP_WRITE);
+				return;
+			}
+			client.output.poll();
+		}
+		if (client.closing) {
+			close(key);
+		} else {
+			key.interestOps(SelectionKey.OP_READ);
+		}
+	}
+
+	/**
+	 * Closes a client's channel and counts them as disconnected
+	 *
+	 * @param key The client's key
+	 */
+	private void close(SelectionKey key) {
+		key.cancel();
+		try {
+			key.channel().close();
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+		if (key.attachment() instanceof Client) {
+			((Client) key.attachment()).session.disconnect();
+		}
+	}
+
+	/**
+	 * The buffers and protocol state kept for each client
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameNioServer
+	 */
+	private static class Client {
+		/** The protocol state of the client */
+		final GameServer.ClientSession session;
+		/** Bytes read from the channel that have not been split into lines */
+		final ByteBuffer input = ByteBuffer.allocate(READ_BUFFER);
+		/** The line being received */
+		final ByteArrayOutputStream line = new ByteArrayOutputStream();
+		/** Replies waiting to be written */
+		final ArrayDeque<ByteBuffer> output = new ArrayDeque<ByteBuffer>();
+		/** Whether the channel closes once the output is written */
+		boolean closing = false;
+		/** Whether the client has switched to binary frames */
+		boolean binary = false;
+		/** Bytes of frames not yet handled, created when the client switches to frames */
+		private ByteBuffer frames;
+
+		/**
+		 * Creates the buffers for a client
+		 *
+		 * @param session The protocol state of the client
+		 */
+		Client(GameServer.ClientSession session) {
+			this.session = session;
+		}
+
+		/**
+		 * Gets the frame buffer ready to take more bytes, growing it if needed
+		 *
+		 * @param needed The amount of bytes about to be added
+		 * @return The frame buffer
+		 */
+		ByteBuffer frameSpace(int needed) {
+			if (frames == null) {
+				frames = ByteBuffer.allocate(Math.max(READ_BUFFER, needed));
+			} else if (frames.remaining() < needed) {
+				// keep what is waiting in a buffer big enough for it and the new bytes
+				ByteBuffer larger = ByteBuffer.allocate(Math.max(frames.capacity() * 2, frames.position() + needed));
+				frames.flip();
+				larger.put(frames);
+				frames = larger;
+			}
+			return frames;
+		}
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * File name: GameOutbox.java
+ * Author: Mostapha A
+ * Purpose: Keeps game results until the server has stored them
+ * Class list: GameClient.java, GameOutbox.java
+ */
+
+package piccross;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * GameOutbox class queues the client's game results and sends them to the
+ * server in batches. Results that arrive close together wait a moment so they
+ * are sent as one P5 message. If sending fails the results stay queued and are
+ * tried again after a delay that doubles up to a minute, and a new connection
+ * sends them straight away, so results are not lost when the server is slow or
+ * down.<br>
+ * A result is removed only once the server has answered that it stored it, a
+ * P5 reply is the amount stored and a text server answers each P3 in order.
+ * Results the server did not store stay queued, and a connection lost after
+ * the server stored a batch but before its reply arrived sends that batch again.
+ * A P5 server stores a batch up to its first result that is not valid, so a
+ * reply lower than the amount sent turns that result away. It is dropped and
+ * the rest are sent again straight away, so one bad result cannot hold up the
+ * ones after it
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameClient.java, GameChannel.java
+ * @since Java 16
+ */
+public class GameOutbox {
+	/** The most results sent in one message */
+	private static final int BATCH = 100;
+	/** Milliseconds to wait for more results before sending */
+	private static final long LINGER = 250;
+	/** Milliseconds before the first retry */
+	private static final long FIRST_RETRY = 1000;
+	/** The longest wait between retries in milliseconds */
+	private static final long MAX_RETRY = 60000;
+	/** The results not yet stored by the server, as time#score, oldest first */
+	private final ArrayDeque<String> pending = new ArrayDeque<String>();
+	/** Runs the sends */
+	private final ScheduledExecutorService timer;
+	/** Where to report what happened */
+	private final Consumer<String> report;
+	/** The connection to send on, null while not connected */
+	private GameChannel channel;
+	/** The next send, null if none is planned */
+	private ScheduledFuture<?> next;
+	/** Whether a batch is waiting for the server's reply */
+	private boolean sending = false;
+	/** Milliseconds to wait before the next retry */
+	private long retry = FIRST_RETRY;
+
+	/**
+	 * Creates an empty outbox
+	 *
+	 * @param report Receives a message each time a batch is stored or fails,
+	 *               called on the outbox's thread
+	 */
+	public GameOutbox(Consumer<String> report) {
+		this.report = report;
+		timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "piccross-outbox");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queues a result to be sent soon
+	 *
+	 * @param result The time and score as time#score or time#score#dimension#hash
+	 */
+	public synchronized void add(String result) {
+		pending.add(result);
+		schedule(LINGER);
+	}
+
+	/**
+	 * Sets the connection to send on and sends anything queued straight away
+	 *
+	 * @param newChannel The connection, null when disconnected
+	 */
+	public synchronized void setChannel(GameChannel newChannel) {
+		channel = newChannel;
+		retry = FIRST_RETRY;
+		if (channel != null) {
+			schedule(0);
+		}
+	}
+
+	/**
+	 * Gets the amount of results not yet stored by the server
+	 *
+	 * @return The amount of results
+	 */
+	public synchronized int size() {
+		return pending.size();
+	}
+
+	/**
+	 * Plans a send unless one is already planned as soon
+	 *
+	 * @param delay Milliseconds to wait
+	 */
+	private void schedule(long delay) {
+		if (next != null && !next.isDone()) {
+			if (next.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+				return;
+			}
+			next.cancel(false);
+		}
+		next = timer.schedule(this::send, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sends the oldest results as one message, runs on the outbox's thread
+	 */
+	private void send() {
+		GameChannel target;
+		ArrayList<String> batch = new ArrayList<String>(BATCH);
+		synchronized (this) {
+			if (sending || channel == null || pending.isEmpty()) {
+				// a reply or a connection will plan the next send
+				return;
+			}
+			target = channel;
+			for (String result : pending) {
+				batch.add(result);
+				if (batch.size() == BATCH) {
+					break;
+				}
+			}
+			sending = true;
+		}
+
+		CompletableFuture<Integer> stored;
+		boolean counted = target.getVersion() == GameProtocol.VERSION;
+		if (counted) {
+			stored = target.send(GameProtocol.P5, String.join(";", batch)).thenApply(GameOutbox::stored);
+		} else {
+			// a text server only knows single results, the channel still sends them together
+			CompletableFuture<?>[] each = new CompletableFuture<?>[batch.size()];
+			int i;
+			for (i = 0; i < each.length; i++) {
+				each[i] = target.send(GameProtocol.P3, batch.get(i));
+			}
+			// the replies come in order, so the results before the first failure were stored
+			stored = CompletableFuture.allOf(each).handle((done, error) -> {
+				int answered = 0;
+				while (answered < each.length && !each[answered].isCompletedExceptionally()) {
+					answered++;
+				}
+				if (answered == 0 && error != null) {
+					throw error instanceof CompletionException ? (CompletionException) error
+							: new CompletionException(error);
+				}
+				return answered;
+			});
+		}
+		stored.whenCompleteAsync(
+				(answered, error) -> sent(batch.size(), answered == null ? 0 : answered, counted, error), timer);
+	}
+
+	/**
+	 * Reads the amount of results a P5 reply says were stored
+	 *
+	 * @param reply The reply
+	 * @return The amount, 0 if the reply is not a number
+	 */
+	private static int stored(String reply) {
+		try {
+			return Integer.parseInt(reply);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Removes the results the server stored or turned away and plans a retry for
+	 * the rest, runs on the outbox's thread
+	 *
+	 * @param count   The amount of results that were sent
+	 * @param stored  The amount the server said it stored, the oldest ones
+	 * @param counted Whether the amount is a P5 reply, where fewer than were sent
+	 *                means the next result was turned away
+	 * @param error   Why sending failed, null if the server answered
+	 */
+	private void sent(int count, int stored, boolean counted, Throwable error) {
+		String message;
+		synchronized (this) {
+			sending = false;
+			Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+			stored = Math.max(0, Math.min(stored, count));
+			if (cause instanceof IllegalArgumentException) {
+				// the results are not valid so sending them again would fail again
+				int i;
+				for (i = 0; i < count; i++) {
+					pending.poll();
+				}
+				message = "Dropped " + count + " invalid results, " + cause.getMessage();
+				if (!pending.isEmpty()) {
+					schedule(0);
+				}
+			} else if (error == null && stored == count) {
+				int i;
+				for (i = 0; i < count; i++) {
+					pending.poll();
+				}
+				retry = FIRST_RETRY;
+				message = count + (count == 1 ? " result" : " results") + " sent";
+				if (!pending.isEmpty()) {
+					schedule(0);
+				}
+			} else if (error == null && counted) {
+				// the server turned away the result after the ones it stored, sending it
+				// again would be turned away again and hold up every later result
+				int i;
+				for (i = 0; i < stored; i++) {
+					pending.poll();
+				}
+				String dropped = pending.poll();
+				retry = FIRST_RETRY;
+				message = "The server stored " + stored + " of " + count + " results, dropped " + dropped
+						+ " as not valid";
+				if (!pending.isEmpty()) {
+					schedule(0);
+				}
+			} else if (error == null) {
+				// keep what the server did not store and try it again later
+				int i;
+				for (i = 0; i < stored; i++) {
+					pending.poll();
+				}
+				message = "The server stored " + stored + " of " + count + " results, trying the rest again in "
+						+ retry / 1000 + " seconds";
+				schedule(retry);
+				retry = Math.min(retry * 2, MAX_RETRY);
+			} else {
+				message = "Sending " + count + (count == 1 ? " result" : " results") + " failed, trying again in "
+						+ retry / 1000 + " seconds";
+				schedule(retry);
+				retry = Math.min(retry * 2, MAX_RETRY);
+			}
+		}
+		report.accept(message);
+	}
+}
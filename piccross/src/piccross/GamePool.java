@@ -0,0 +1,132 @@
+/*
+ * File name: GamePool.java
+ * Author: Mostapha A
+ * Purpose: Generates games in the background so new games are ready right away
+ * Class list: GameModel.java, GameController.java, GamePool.java
+ */
+
+package piccross;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GamePool class keeps a small queue of ready configuration strings for each
+ * dimension. Games are generated on a ForkJoinPool and a queue is topped up
+ * every time a game is taken from it. A game is never generated on the thread
+ * taking it, so taking one from the event thread never freezes the window
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameModel.java, GameController.java
+ * @since Java 16
+ */
+public class GamePool {
+	/** The amount of ready games kept for each dimension */
+	private static final int QUEUE_SIZE = 4;
+	/** The threads that generate games, they are daemon threads */
+	private final ForkJoinPool workers;
+	/** The ready configuration strings for each dimension */
+	private final ConcurrentHashMap<Integer, ArrayBlockingQueue<String>> ready = new ConcurrentHashMap<>();
+	/** The ready and currently generating games for each dimension */
+	private final ConcurrentHashMap<Integer, AtomicInteger> reserved = new ConcurrentHashMap<>();
+	/** A model for each thread to generate with, since a model is not thread safe */
+	private final ThreadLocal<GameModel> generators = ThreadLocal.withInitial(GameModel::new);
+
+	/**
+	 * Creates the pool and starts filling the queues for the given dimensions
+	 *
+	 * @param dimensions The dimensions to have games ready for
+	 */
+	public GamePool(int... dimensions) {
+		// leave one processor for the user interface
+		workers = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		for (int dimension : dimensions) {
+			fill(dimension);
+		}
+	}
+
+	/**
+	 * Takes a ready game, if the queue for the dimension is empty one is
+	 * generated on the pool
+	 *
+	 * @param dimension The board dimension
+	 * @return A configuration string, already complete when a game was ready
+	 */
+	public CompletableFuture<String> take(int dimension) {
+		String config = queueFor(dimension).poll();
+		CompletableFuture<String> game;
+		if (config != null) {
+			reserved.get(dimension).decrementAndGet();
+			game = CompletableFuture.completedFuture(config);
+		} else {
+			// nothing ready yet, generate one ahead of the queue
+			game = CompletableFuture.supplyAsync(() -> generate(dimension), workers);
+		}
+		// replace what was taken
+		fill(dimension);
+		return game;
+	}
+
+	/**
+	 * Stops generating games
+	 */
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
+	/**
+	 * Gets the queue for a dimension, making it the first time it is used
+	 *
+	 * @param dimension The board dimension
+	 * @return The queue of ready games
+	 */
+	private ArrayBlockingQueue<String> queueFor(int dimension) {
+		reserved.computeIfAbsent(dimension, d -> new AtomicInteger());
+		return ready.computeIfAbsent(dimension, d -> new ArrayBlockingQueue<>(QUEUE_SIZE));
+	}
+
+	/**
+	 * Starts generating games until the queue for a dimension will be full
+	 *
+	 * @param dimension The board dimension
+	 */
+	private void fill(int dimension) {
+		ArrayBlockingQueue<String> queue = queueFor(dimension);
+		AtomicInteger count = reserved.get(dimension);
+		for (;;) {
+			// reserve a place in the queue before generating for it
+			int current = count.get();
+			if (current >= QUEUE_SIZE || workers.isShutdown()) {
+				return;
+			}
+			if (count.compareAndSet(current, current + 1)) {
+				workers.execute(() -> {
+					try {
+						queue.offer(generate(dimension));
+					} catch (RuntimeException e) {
+						// give the place back so it will be tried again
+						count.decrementAndGet();
+						e.printStackTrace();
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Generates one game with the current thread's model
+	 *
+	 * @param dimension The board dimension
+	 * @return A configuration string
+	 */
+	private String generate(int dimension) {
+		GameModel model = generators.get();
+		model.setDimension(dimension);
+		model.generateString();
+		return model.getString();
+	}
+}
@@ -0,0 +1,837 @@
+/*
+ * File name: GameProtocol.java
+ * Author: Mostapha A
+ * Purpose: Defines the binary client server protocol
+ * Class list: GameProtocol.java, Frame, Result, Query, Fetch, Stats
+ */
+
+package piccross;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GameProtocol class defines version 2 of the client server protocol. Version 1
+ * sends every message as a line of text, id#Pn#data, so a configuration is a
+ * comma separated string of 0s and 1s and the time and score are parsed from
+ * text. Version 2 sends length prefixed binary frames instead, a configuration
+ * is packed eight cells a byte and numbers are sent as ints.<br>
+ * A client asks for version 2 by sending id#V#2 after receiving its id. A
+ * version 2 server replies id#V2 and both sides use frames from then on, an
+ * older server replies id#0 like any message it does not know and the client
+ * stays on version 1.<br>
+ * A frame is an int length of the rest of the frame, a byte opcode, an int
+ * correlation number the reply echoes, then the payload:
+ * <ul>
+ * <li>P0 end, empty, the reply is the closing text</li>
+ * <li>P1 configuration, a packed board, the reply is the long id the server
+ * keeps it under</li>
+ * <li>P2 name, the name as UTF-8, the server keeps the first MAX_NAME
+ * characters</li>
+ * <li>P3 time and score, two ints, or time, score and dimension as ints then
+ * the configuration's hash as a long</li>
+ * <li>P4 configuration request, empty for the newest configuration, a long id
+ * for that configuration or an int dimension for one of that dimension, the
+ * reply is a packed board or a dimension of 0 when there is none</li>
+ * <li>P5 several times and scores, pairs of ints, or -1 then results like the
+ * long form of P3, the reply is the int amount stored. The server stores the
+ * results before the first one that is not valid, so a reply lower than the
+ * amount sent means the next result was turned away. Only sent with frames, a
+ * text server gets one P3 for each result</li>
+ * <li>P6 leaderboard request, dimension as an int, configuration hash as a
+ * long (0 for every configuration of the dimension), count as an int and a byte
+ * that is 1 for fastest times and 0 for best scores. The reply is the int amount
+ * of entries then each entry's score and time as ints and name as a short length
+ * and UTF-8</li>
+ * </ul>
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java, GameClient.java
+ * @since Java 16
+ */
+public class GameProtocol {
+	/** The binary protocol version */
+	public static final int VERSION = 2;
+	/** End of the connection */
+	public static final int P0 = 0;
+	/** A game configuration */
+	public static final int P1 = 1;
+	/** The client's name */
+	public static final int P2 = 2;
+	/** The time and score of a game */
+	public static final int P3 = 3;
+	/** A request for the game configuration */
+	public static final int P4 = 4;
+	/** The times and scores of several games */
+	public static final int P5 = 5;
+	/** A request for the best results of a board */
+	public static final int P6 = 6;
+	/** The bytes of a frame after the length and before the payload */
+	public static final int HEADER = 5;
+	/** The most characters of a name the server keeps */
+	public static final int MAX_NAME = 64;
+	/** The longest frame accepted, a 200x200 configuration fits easily */
+	public static final int MAX_FRAME = 1 << 20;
+	/** Message counts of the text protocol */
+	public static final Stats V1 = new Stats();
+	/** Message counts of the binary protocol */
+	public static final Stats V2 = new Stats();
+	/** An empty payload */
+	private static final byte[] EMPTY = new byte[0];
+
+	/**
+	 * Not created, only has static methods
+	 */
+	private GameProtocol() {
+	}
+
+	/**
+	 * Gets the text a client sends to ask for the binary protocol
+	 *
+	 * @param clientId The client's id
+	 * @return The request line
+	 */
+	public static String hello(String clientId) {
+		return clientId + "#V#" + VERSION;
+	}
+
+	/**
+	 * Gets the text a server replies when it agrees to the binary protocol
+	 *
+	 * @param clientId The client's id
+	 * @return The reply line
+	 */
+	public static String helloReply(String clientId) {
+		return clientId + "#V" + VERSION;
+	}
+
+	/**
+	 * Creates a frame with no payload
+	 *
+	 * @param opcode      The message type
+	 * @param correlation The number the reply echoes
+	 * @return The frame
+	 */
+	public static Frame frame(int opcode, int correlation) {
+		return new Frame(opcode, correlation, EMPTY);
+	}
+
+	/**
+	 * Writes a frame to a stream, the caller flushes
+	 *
+	 * @param out   The stream
+	 * @param frame The frame
+	 * @throws IOException If writing fails
+	 */
+	public static void write(DataOutputStream out, Frame frame) throws IOException {
+		out.writeInt(HEADER + frame.payload().length);
+		out.writeByte(frame.opcode());
+		out.writeInt(frame.correlation());
+		out.write(frame.payload());
+	}
+
+	/**
+	 * Reads a frame from a stream
+	 *
+	 * @param in The stream
+	 * @return The frame, or null if the stream ended between frames
+	 * @throws IOException If reading fails or the frame is not valid
+	 */
+	public static Frame read(DataInputStream in) throws IOException {
+		int length;
+		try {
+			length = in.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+		if (length < HEADER || length > MAX_FRAME) {
+			throw new IOException("Invalid frame length " + length);
+		}
+		int opcode = in.readUnsignedByte();
+		int correlation = in.readInt();
+		byte[] payload = new byte[length - HEADER];
+		in.readFully(payload);
+		return new Frame(opcode, correlation, payload);
+	}
+
+	/**
+	 * Writes a frame into a new buffer ready to be written to a channel
+	 *
+	 * @param frame The frame
+	 * @return The buffer
+	 */
+	public static ByteBuffer toBuffer(Frame frame) {
+		ByteBuffer buffer = ByteBuffer.allocate(frame.size());
+		buffer.putInt(HEADER + frame.payload().length);
+		buffer.put((byte) frame.opcode());
+		buffer.putInt(frame.correlation());
+		buffer.put(frame.payload());
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Reads a frame from a buffer holding at least one whole frame
+	 *
+	 * @param buffer The buffer, positioned after the length
+	 * @param length The length read before the frame
+	 * @return The frame
+	 */
+	public static Frame fromBuffer(ByteBuffer buffer, int length) {
+		int opcode = buffer.get() & 0xFF;
+		int correlation = buffer.getInt();
+		byte[] payload = new byte[length - HEADER];
+		buffer.get(payload);
+		return new Frame(opcode, correlation, payload);
+	}
+
+	/**
+	 * Packs a configuration for a frame
+	 *
+	 * @param config The configuration in either text form, "0" for none
+	 * @return The payload
+	 */
+	public static byte[] packConfig(String config) {
+		if (config == null || config.equals("0")) {
+			// a dimension of 0 means there is no configuration
+			return new byte[2];
+		}
+		return GameCodec.toBytes(GameCodec.decode(config));
+	}
+
+	/**
+	 * Unpacks a configuration from a frame
+	 *
+	 * @param payload The payload
+	 * @return The configuration as text, "0" for none
+	 * @throws IllegalArgumentException If the payload is not a packed board
+	 */
+	public static String unpackConfig(byte[] payload) {
+		GameBoard board = GameCodec.fromBytes(payload);
+		return board == null ? "0" : GameCodec.encode(board);
+	}
+
+	/**
+	 * Packs ints for a frame
+	 *
+	 * @param values The ints
+	 * @return The payload
+	 */
+	public static byte[] packInts(int... values) {
+		ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+		for (int value : values) {
+			buffer.putInt(value);
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Unpacks ints from a frame
+	 *
+	 * @param payload The payload
+	 * @param count   The amount of ints expected
+	 * @return The ints
+	 * @throws IllegalArgumentException If the payload is the wrong size
+	 */
+	public static int[] unpackInts(byte[] payload, int count) {
+		if (payload.length != count * Integer.BYTES) {
+			throw new IllegalArgumentException("Expected " + count + " ints");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(payload);
+		int[] values = new int[count];
+		int i;
+		for (i = 0; i < count; i++) {
+			values[i] = buffer.getInt();
+		}
+		return values;
+	}
+
+	/**
+	 * Packs a time and score for a frame, the short form if the board is not known
+	 *
+	 * @param result The result
+	 * @return The payload
+	 */
+	public static byte[] packResult(Result result) {
+		if (result.dimension() == 0 && result.hash() == 0) {
+			return packInts(result.time(), result.score());
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(Result.BYTES);
+		result.write(buffer);
+		return buffer.array();
+	}
+
+	/**
+	 * Unpacks a time and score from a frame
+	 *
+	 * @param payload The payload
+	 * @return The result, with a dimension and hash of 0 for the short form
+	 * @throws IllegalArgumentException If the payload is the wrong size
+	 */
+	public static Result unpackResult(byte[] payload) {
+		if (payload.length == Result.BYTES) {
+			return Result.read(ByteBuffer.wrap(payload));
+		}
+		int[] values = unpackInts(payload, 2);
+		return new Result(values[0], values[1], 0, 0);
+	}
+
+	/**
+	 * Packs times and scores for a frame, as pairs of ints unless a result has its
+	 * board
+	 *
+	 * @param results The results as time#score or time#score#dimension#hash
+	 * @return The payload
+	 * @throws IllegalArgumentException If a result is not valid
+	 */
+	public static byte[] packResults(Iterable<String> results) {
+		ArrayList<Result> parsed = new ArrayList<Result>();
+		boolean full = false;
+		for (String result : results) {
+			Result next = Result.parse(result);
+			full |= next.dimension() != 0 || next.hash() != 0;
+			parsed.add(next);
+		}
+		ByteBuffer buffer;
+		if (full) {
+			buffer = ByteBuffer.allocate(Integer.BYTES + parsed.size() * Result.BYTES);
+			// -1 can not be a time so it marks the long form
+			buffer.putInt(-1);
+			for (Result result : parsed) {
+				result.write(buffer);
+			}
+		} else {
+			buffer = ByteBuffer.allocate(parsed.size() * 2 * Integer.BYTES);
+			for (Result result : parsed) {
+				buffer.putInt(result.time());
+				buffer.putInt(result.score());
+			}
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Unpacks times and scores from a frame
+	 *
+	 * @param payload The payload
+	 * @return The results
+	 * @throws IllegalArgumentException If the payload is not pairs of ints or
+	 *                                  long form results
+	 */
+	public static Result[] unpackResults(byte[] payload) {
+		ByteBuffer buffer = ByteBuffer.wrap(payload);
+		Result[] results;
+		int i;
+		if (payload.length >= Integer.BYTES && buffer.getInt(0) == -1) {
+			if ((payload.length - Integer.BYTES) % Result.BYTES != 0) {
+				throw new IllegalArgumentException("Expected results");
+			}
+			buffer.getInt();
+			results = new Result[(payload.length - Integer.BYTES) / Result.BYTES];
+			for (i = 0; i < results.length; i++) {
+				results[i] = Result.read(buffer);
+			}
+			return results;
+		}
+		if (payload.length % (2 * Integer.BYTES) != 0) {
+			throw new IllegalArgumentException("Expected pairs of ints");
+		}
+		results = new Result[payload.length / (2 * Integer.BYTES)];
+		for (i = 0; i < results.length; i++) {
+			results[i] = new Result(buffer.getInt(), buffer.getInt(), 0, 0);
+		}
+		return results;
+	}
+
+	/**
+	 * Packs a configuration request for a frame
+	 *
+	 * @param fetch The request
+	 * @return The payload
+	 */
+	public static byte[] packFetch(Fetch fetch) {
+		if (fetch.hash() != 0) {
+			return ByteBuffer.allocate(Long.BYTES).putLong(fetch.hash()).array();
+		}
+		if (fetch.dimension() != 0) {
+			return packInts(fetch.dimension());
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * Unpacks a configuration request from a frame
+	 *
+	 * @param payload The payload
+	 * @return The request
+	 * @throws IllegalArgumentException If the payload is the wrong size
+	 */
+	public static Fetch unpackFetch(byte[] payload) {
+		switch (payload.length) {
+		case 0:
+			return new Fetch(0, 0);
+		case Integer.BYTES:
+			return new Fetch(0, ByteBuffer.wrap(payload).getInt());
+		case Long.BYTES:
+			return new Fetch(ByteBuffer.wrap(payload).getLong(), 0);
+		default:
+			throw new IllegalArgumentException("Invalid configuration request");
+		}
+	}
+
+	/**
+	 * Packs a configuration's id for a frame
+	 *
+	 * @param hash The id
+	 * @return The payload
+	 */
+	public static byte[] packId(long hash) {
+		return ByteBuffer.allocate(Long.BYTES).putLong(hash).array();
+	}
+
+	/**
+	 * Unpacks a configuration's id from a frame into the text protocol's form
+	 *
+	 * @param payload The payload
+	 * @return The id in hexadecimal, "0" if the payload is empty like an older
+	 *         server's reply
+	 */
+	public static String unpackId(byte[] payload) {
+		if (payload.length != Long.BYTES) {
+			return "0";
+		}
+		return Long.toHexString(ByteBuffer.wrap(payload).getLong());
+	}
+
+	/**
+	 * Packs a leaderboard request for a frame
+	 *
+	 * @param query The request
+	 * @return The payload
+	 */
+	public static byte[] packQuery(Query query) {
+		ByteBuffer buffer = ByteBuffer.allocate(Query.BYTES);
+		buffer.putInt(query.dimension());
+		buffer.putLong(query.hash());
+		buffer.putInt(query.count());
+		buffer.put((byte) (query.byTime() ? 1 : 0));
+		return buffer.array();
+	}
+
+	/**
+	 * Unpacks a leaderboard request from a frame
+	 *
+	 * @param payload The payload
+	 * @return The request
+	 * @throws IllegalArgumentException If the payload is the wrong size
+	 */
+	public static Query unpackQuery(byte[] payload) {
+		if (payload.length != Query.BYTES) {
+			throw new IllegalArgumentException("Invalid leaderboard request");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(payload);
+		return new Query(buffer.getInt(), buffer.getLong(), buffer.getInt(), buffer.get() == 1);
+	}
+
+	/**
+	 * Packs leaderboard entries for a frame
+	 *
+	 * @param entries The entries, best first
+	 * @return The payload
+	 */
+	public static byte[] packLeaders(List<GameLeaderboard.Entry> entries) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(entries.size());
+			for (GameLeaderboard.Entry entry : entries) {
+				out.writeInt(entry.score());
+				out.writeInt(entry.time());
+				out.writeUTF(entry.name());
+			}
+		} catch (IOException e) {
+			// writing to memory does not fail
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Unpacks leaderboard entries from a frame into the text protocol's form
+	 *
+	 * @param payload The payload
+	 * @return The entries as name,score,time separated by semicolons, "0" if
+	 *         there are none
+	 * @throws IllegalArgumentException If the payload is not leaderboard entries
+	 */
+	public static String unpackLeaders(byte[] payload) {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		ArrayList<GameLeaderboard.Entry> entries = new ArrayList<GameLeaderboard.Entry>();
+		try {
+			int count = in.readInt();
+			int i;
+			for (i = 0; i < count; i++) {
+				int score = in.readInt();
+				int time = in.readInt();
+				entries.add(new GameLeaderboard.Entry(in.readUTF(), time, score, i));
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid leaderboard entries", e);
+		}
+		return leadersText(entries);
+	}
+
+	/**
+	 * Writes leaderboard entries in the text protocol's form
+	 *
+	 * @param entries The entries, best first
+	 * @return The entries as name,score,time separated by semicolons, "0" if
+	 *         there are none
+	 */
+	public static String leadersText(List<GameLeaderboard.Entry> entries) {
+		if (entries.isEmpty()) {
+			return "0";
+		}
+		StringBuilder text = new StringBuilder(entries.size() * 24);
+		for (GameLeaderboard.Entry entry : entries) {
+			if (text.length() > 0) {
+				text.append(';');
+			}
+			// the separators can not be part of a name
+			text.append(entry.name().replace(',', ' ').replace(';', ' ').replace('#', ' ')).append(',')
+					.append(entry.score()).append(',').append(entry.time());
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Cuts a name to the first MAX_NAME characters, so it always fits the
+	 * leaderboard's short length
+	 *
+	 * @param name The name sent
+	 * @return The name kept
+	 */
+	public static String name(String name) {
+		if (name.length() <= MAX_NAME) {
+			return name;
+		}
+		// do not split a character made of two chars
+		int end = Character.isHighSurrogate(name.charAt(MAX_NAME - 1)) ? MAX_NAME - 1 : MAX_NAME;
+		return name.substring(0, end);
+	}
+
+	/**
+	 * Packs text for a frame
+	 *
+	 * @param text The text
+	 * @return The payload
+	 */
+	public static byte[] packText(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Unpacks text from a frame
+	 *
+	 * @param payload The payload
+	 * @return The text
+	 */
+	public static String unpackText(byte[] payload) {
+		return new String(payload, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * One binary message
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameProtocol
+	 * @param opcode      The message type, P0 to P6
+	 * @param correlation The number the reply echoes so replies can be matched to
+	 *                    requests
+	 * @param payload     The message data
+	 */
+	public record Frame(int opcode, int correlation, byte[] payload) {
+
+		/**
+		 * Gets the size of the frame on the wire
+		 *
+		 * @return The bytes including the length
+		 */
+		public int size() {
+			return Integer.BYTES + HEADER + payload.length;
+		}
+	}
+
+	/**
+	 * The time and score of one game and the board it was played on
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameProtocol
+	 * @param time      The time in seconds
+	 * @param score     The score
+	 * @param dimension The board dimension, 0 if not known
+	 * @param hash      The hash of the configuration, 0 if not known
+	 */
+	public record Result(int time, int score, int dimension, long hash) {
+		/** The size of the long form in a frame */
+		static final int BYTES = 3 * Integer.BYTES + Long.BYTES;
+
+		/**
+		 * Reads a result in the text protocol's form
+		 *
+		 * @param text time#score or time#score#dimension#hash with the hash in
+		 *             hexadecimal
+		 * @return The result
+		 * @throws IllegalArgumentException If the text is not a result
+		 */
+		public static Result parse(String text) {
+			String[] parts = text.split("#");
+			if (parts.length == 2) {
+				return new Result(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), 0, 0);
+			}
+			if (parts.length == 4) {
+				return new Result(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+						Long.parseUnsignedLong(parts[3], 16));
+			}
+			throw new IllegalArgumentException("Invalid time and score " + text);
+		}
+
+		/**
+		 * Checks the result could come from a game, the time and score are not
+		 * negative and the dimension is 0 or a board the game can make
+		 *
+		 * @return Whether the server can store the result
+		 */
+		public boolean valid() {
+			return time >= 0 && score >= 0 && dimension >= 0 && dimension <= GameBoard.MAX_DIMENSION;
+		}
+
+		/**
+		 * Reads the long form from a buffer
+		 *
+		 * @param buffer The buffer
+		 * @return The result
+		 */
+		static Result read(ByteBuffer buffer) {
+			return new Result(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+		}
+
+		/**
+		 * Writes the long form to a buffer
+		 *
+		 * @param buffer The buffer
+		 */
+		void write(ByteBuffer buffer) {
+			buffer.putInt(time);
+			buffer.putInt(score);
+			buffer.putInt(dimension);
+			buffer.putLong(hash);
+		}
+
+		/**
+		 * Writes the result in the text protocol's form
+		 *
+		 * @return time#score, with #dimension#hash if the board is known
+		 */
+		@Override
+		public String toString() {
+			if (dimension == 0 && hash == 0) {
+				return time + "#" + score;
+			}
+			return time + "#" + score + "#" + dimension + "#" + Long.toHexString(hash);
+		}
+	}
+
+	/**
+	 * A request for the best results of a board
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameProtocol
+	 * @param dimension The board dimension
+	 * @param hash      The hash of the configuration, 0 for every configuration
+	 *                  of the dimension
+	 * @param count     The most entries wanted
+	 * @param byTime    Whether the fastest times are wanted instead of the best
+	 *                  scores
+	 */
+	public record Query(int dimension, long hash, int count, boolean byTime) {
+		/** The size in a frame */
+		static final int BYTES = 2 * Integer.BYTES + Long.BYTES + 1;
+
+		/**
+		 * Reads a request in the text protocol's form
+		 *
+		 * @param text dimension#hash#count#score or dimension#hash#count#time with
+		 *             the hash in hexadecimal
+		 * @return The request
+		 * @throws IllegalArgumentException If the text is not a request
+		 */
+		public static Query parse(String text) {
+			String[] parts = text.split("#");
+			if (parts.length != 4 || !(parts[3].equals("score") || parts[3].equals("time"))) {
+				throw new IllegalArgumentException("Invalid leaderboard request " + text);
+			}
+			return new Query(Integer.parseInt(parts[0]), Long.parseUnsignedLong(parts[1], 16),
+					Integer.parseInt(parts[2]), parts[3].equals("time"));
+		}
+
+		/**
+		 * Writes the request in the text protocol's form
+		 *
+		 * @return dimension#hash#count#score or dimension#hash#count#time
+		 */
+		@Override
+		public String toString() {
+			return dimension + "#" + Long.toHexString(hash) + "#" + count + "#" + (byTime ? "time" : "score");
+		}
+	}
+
+	/**
+	 * A request for a configuration, by id, by dimension or the newest
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameProtocol
+	 * @param hash      The configuration's id, 0 if not asked for by id
+	 * @param dimension The dimension wanted, 0 if not asked for by dimension
+	 */
+	public record Fetch(long hash, int dimension) {
+		/**
+		 * Reads a request in the text protocol's form
+		 *
+		 * @param text 0 for the newest, hash#id with the id in hexadecimal or
+		 *             dimension#number
+		 * @return The request
+		 * @throws IllegalArgumentException If the text is not a request
+		 */
+		public static Fetch parse(String text) {
+			if (text.isEmpty() || text.equals("0")) {
+				return new Fetch(0, 0);
+			}
+			String[] parts = text.split("#");
+			if (parts.length == 2 && parts[0].equals("hash")) {
+				return new Fetch(Long.parseUnsignedLong(parts[1], 16), 0);
+			}
+			if (parts.length == 2 && parts[0].equals("dimension")) {
+				return new Fetch(0, Integer.parseInt(parts[1]));
+			}
+			throw new IllegalArgumentException("Invalid configuration request " + text);
+		}
+
+		/**
+		 * Writes the request in the text protocol's form
+		 *
+		 * @return 0, hash#id or dimension#number
+		 */
+		@Override
+		public String toString() {
+			if (hash != 0) {
+				return "hash#" + Long.toHexString(hash);
+			}
+			return dimension != 0 ? "dimension#" + dimension : "0";
+		}
+	}
+
+	/**
+	 * Counts the messages, bytes and parsing time of one protocol version so the
+	 * versions can be compared. Counters are added to from every connection
+	 * without locking
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameProtocol
+	 */
+	public static class Stats {
+		/** The messages received */
+		private final LongAdder messages = new LongAdder();
+		/** The bytes received */
+		private final LongAdder bytesIn = new LongAdder();
+		/** The bytes sent */
+		private final LongAdder bytesOut = new LongAdder();
+		/** The nanoseconds spent parsing received messages */
+		private final LongAdder parseNanos = new LongAdder();
+
+		/**
+		 * Counts a received message
+		 *
+		 * @param bytes The size of the message
+		 * @param nanos The time spent parsing it
+		 */
+		public void received(int bytes, long nanos) {
+			messages.increment();
+			bytesIn.add(bytes);
+			parseNanos.add(nanos);
+		}
+
+		/**
+		 * Counts a sent message
+		 *
+		 * @param bytes The size of the message
+		 */
+		public void sent(int bytes) {
+			bytesOut.add(bytes);
+		}
+
+		/**
+		 * Gets the amount of messages received
+		 *
+		 * @return The messages
+		 */
+		public long getMessages() {
+			return messages.sum();
+		}
+
+		/**
+		 * Gets the amount of bytes received
+		 *
+		 * @return The bytes
+		 */
+		public long getBytesIn() {
+			return bytesIn.sum();
+		}
+
+		/**
+		 * Gets the amount of bytes sent
+		 *
+		 * @return The bytes
+		 */
+		public long getBytesOut() {
+			return bytesOut.sum();
+		}
+
+		/**
+		 * Describes the counts and the averages per message
+		 *
+		 * @return The description
+		 */
+		public String toString() {
+			long count = messages.sum();
+			long in = bytesIn.sum();
+			long out = bytesOut.sum();
+			long nanos = parseNanos.sum();
+			if (count == 0) {
+				return "no messages";
+			}
+			return count + " messages, " + in + " bytes in (" + in / count + " per message), " + out
+					+ " bytes out (" + out / count + " per message), " + nanos / count + " ns parsing per message";
+		}
+	}
+}
@@ -0,0 +1,485 @@
+/*
+ * File name: GameResults.java
+ * Author: Mostapha A
+ * Purpose: Keeps every result sent to the server in a file that survives restarts
+ * Class list: GameServer.java, GameResults.java, Result, Player
+ */
+
+package piccross;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * GameResults class stores every time and score sent to the server in an
+ * append only file, one record of RECORD bytes per game, so results are not
+ * lost when the server exits.<br>
+ * The file is memory mapped a region at a time. Adding a result takes the next
+ * record with one atomic step and copies the record into the mapped region, so
+ * clients adding results at once never wait on each other. A record ends with a
+ * checksum written last, a record cut short by a crash does not match its
+ * checksum and is skipped when the file is read.<br>
+ * Written records are in the system's memory as soon as they are copied and
+ * survive the server exiting or crashing. Writing them to the disk, which
+ * survives the machine stopping, is done by a background thread for every
+ * record added since its last pass together, a few milliseconds apart, so the
+ * cost of writing to the disk is shared by the whole batch.<br>
+ * When the file is opened it is read from the start to rebuild the results of
+ * every player, and each result is handed on so other indexes like the
+ * leaderboard can be rebuilt in the same pass
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameServer.java
+ * @since Java 16
+ */
+public class GameResults {
+	/** The size of a record in bytes, the header is the size of one record too */
+	public static final int RECORD = 64;
+	/** The bytes of a name kept in a record, longer names are cut between characters */
+	private static final int NAME = 28;
+	/** Where the checksum is in a record */
+	private static final int CHECKSUM = RECORD - Integer.BYTES;
+	/** The size of each mapped region, a whole number of records */
+	private static final int REGION = RECORD * 16384;
+	/** The first bytes of the file */
+	private static final long MAGIC = 0x5049435245533031L; // PICRES01
+	/** How many records past an empty one are checked for records added after it */
+	private static final int LOOKAHEAD = 1024;
+	/** The nanoseconds between writes to the disk */
+	private static final long COMMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+	/** The file */
+	private final FileChannel channel;
+	/** The mapped regions, by number */
+	private final ConcurrentHashMap<Integer, MappedByteBuffer> regions = new ConcurrentHashMap<Integer, MappedByteBuffer>();
+	/** The number of the next record to add */
+	private final AtomicLong next = new AtomicLong();
+	/** The records before this one have been written to the disk */
+	private volatile long committed;
+	/** The records skipped when the file was read because they were cut short */
+	private final long damaged;
+	/** The highest client number in the file */
+	private final int lastClient;
+	/** The times the records were written to the disk */
+	private final LongAdder commits = new LongAdder();
+	/** The results of each player, by name */
+	private final ConcurrentHashMap<String, Player> players = new ConcurrentHashMap<String, Player>();
+	/** Whether the file has been closed */
+	private volatile boolean closed = false;
+
+	/**
+	 * Opens the file, creating it if needed, reads every result in it and starts
+	 * writing to the disk in the background
+	 *
+	 * @param path   The file
+	 * @param replay Receives every result in the file, in the order they were
+	 *               added
+	 * @throws IOException If the file cannot be opened or is not a results file
+	 */
+	public GameResults(Path path, Consumer<Result> replay) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			MappedByteBuffer first = region(0);
+			if (first.getLong(0) == 0) {
+				// a new file
+				first.putLong(0, MAGIC);
+				first.putInt(Long.BYTES, RECORD);
+				first.force(0, RECORD);
+			} else if (first.getLong(0) != MAGIC || first.getInt(Long.BYTES) != RECORD) {
+				throw new IOException(path + " is not a results file");
+			}
+
+			// read every record until the first one never written
+			long record = 0;
+			long skipped = 0;
+			int highest = 0;
+			byte[] bytes = new byte[RECORD];
+			for (;;) {
+				read(record, bytes);
+				ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				if (empty(bytes)) {
+					// records taken just before a crash may be empty with later ones written
+					long later = written(record);
+					if (later < 0) {
+						break;
+					}
+					skipped += later - record;
+					record = later;
+					continue;
+				}
+				if (buffer.getInt(CHECKSUM) != checksum(bytes)) {
+					skipped++;
+				} else {
+					Result result = new Result(buffer.getInt(8), name(bytes), buffer.getInt(12), buffer.getInt(16),
+							buffer.getInt(20), buffer.getLong(24));
+					highest = Math.max(highest, result.client());
+					index(result.name(), result.time(), result.score());
+					replay.accept(result);
+				}
+				record++;
+			}
+			next.set(record);
+			committed = record;
+			damaged = skipped;
+			lastClient = highest;
+		} catch (UncheckedIOException e) {
+			channel.close();
+			throw e.getCause();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+		Thread committer = new Thread(this::commit, "piccross-results");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	/**
+	 * Adds a result, it is in the file when this returns and written to the disk
+	 * within a few milliseconds
+	 *
+	 * @param client    The client number
+	 * @param name      The player's name
+	 * @param time      The time of the game in seconds
+	 * @param score     The score of the game
+	 * @param dimension The board dimension, 0 if not known
+	 * @param hash      The configuration's hash, 0 if not known
+	 */
+	public void add(int client, String name, int time, int score, int dimension, long hash) {
+		if (closed) {
+			return;
+		}
+		byte[] bytes = new byte[RECORD];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.putLong(System.currentTimeMillis());
+		buffer.putInt(client);
+		buffer.putInt(time);
+		buffer.putInt(score);
+		buffer.putInt(dimension);
+		buffer.putLong(hash);
+		// keep the name as it will be read back, so a restart does not split a player
+		String kept = keptName(name);
+		byte[] text = kept.getBytes(StandardCharsets.UTF_8);
+		buffer.put(CHECKSUM - NAME, text, 0, text.length);
+		buffer.putInt(CHECKSUM, checksum(bytes));
+
+		// map the record's region before taking it, a record taken and never written
+		// would stop the records after it from being counted as on the disk
+		long record;
+		long offset;
+		MappedByteBuffer mapped;
+		do {
+			record = next.get();
+			offset = (record + 1) * RECORD;
+			mapped = region((int) (offset / REGION));
+		} while (!next.compareAndSet(record, record + 1));
+		int at = (int) (offset % REGION);
+		// the checksum goes last so a record is only whole once it is all there
+		mapped.put(at, bytes, 0, CHECKSUM);
+		mapped.putInt(at + CHECKSUM, buffer.getInt(CHECKSUM));
+		index(kept, time, score);
+	}
+
+	/**
+	 * Gets a name as a record keeps it, cut to the whole characters that fit and
+	 * at the first zero byte
+	 *
+	 * @param name The player's name
+	 * @return The name read back from a record
+	 */
+	public static String keptName(String name) {
+		byte[] text = name.getBytes(StandardCharsets.UTF_8);
+		int end = Math.min(NAME, text.length);
+		// do not keep part of a character, its other bytes start with bits 10
+		if (end < text.length) {
+			while (end > 0 && (text[end] & 0xC0) == 0x80) {
+				end--;
+			}
+		}
+		int i;
+		for (i = 0; i < end; i++) {
+			if (text[i] == 0) {
+				end = i;
+			}
+		}
+		return new String(text, 0, end, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Gets the results of every player, most games first
+	 *
+	 * @return The players
+	 */
+	public List<Player> players() {
+		ArrayList<Player> list = new ArrayList<Player>(players.values());
+		list.sort(Comparator.comparingInt(Player::games).reversed().thenComparing(Player::name));
+		return list;
+	}
+
+	/**
+	 * Gets the amount of records in the file
+	 *
+	 * @return The records
+	 */
+	public long size() {
+		return next.get();
+	}
+
+	/**
+	 * Gets the amount of records skipped when the file was read because a crash
+	 * cut them short
+	 *
+	 * @return The records skipped
+	 */
+	public long damaged() {
+		return damaged;
+	}
+
+	/**
+	 * Gets the amount of times records were written to the disk
+	 *
+	 * @return The writes
+	 */
+	public long commits() {
+		return commits.sum();
+	}
+
+	/**
+	 * Gets the highest client number in the file, so new clients get new numbers
+	 *
+	 * @return The client number, 0 if there are none
+	 */
+	public int lastClient() {
+		return lastClient;
+	}
+
+	/**
+	 * Writes every record to the disk and closes the file, results added later are
+	 * ignored
+	 */
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		force(next.get());
+		try {
+			channel.close();
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+	}
+
+	/**
+	 * Writes the records added since the last pass to the disk until the file is
+	 * closed, runs on its own thread
+	 */
+	private void commit() {
+		while (!closed) {
+			LockSupport.parkNanos(COMMIT_NANOS);
+			synchronized (this) {
+				if (!closed) {
+					force(next.get());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes records to the disk, a record still being copied is written again on
+	 * the next pass
+	 *
+	 * @param end The record to write up to
+	 */
+	private void force(long end) {
+		long from = committed;
+		if (from >= end) {
+			return;
+		}
+		long start = (from + 1) * RECORD;
+		long stop = (end + 1) * RECORD;
+		while (start < stop) {
+			int region = (int) (start / REGION);
+			int at = (int) (start % REGION);
+			int length = (int) Math.min(REGION - at, stop - start);
+			region(region).force(at, length);
+			start += length;
+		}
+		commits.increment();
+
+		// only move past records that were whole when written
+		byte[] bytes = new byte[RECORD];
+		while (from < end) {
+			read(from, bytes);
+			if (ByteBuffer.wrap(bytes).getInt(CHECKSUM) != checksum(bytes)) {
+				break;
+			}
+			from++;
+		}
+		committed = from;
+	}
+
+	/**
+	 * Finds a written record shortly after an empty one
+	 *
+	 * @param empty The empty record
+	 * @return The next written record, -1 if there is none
+	 */
+	private long written(long empty) {
+		byte[] bytes = new byte[RECORD];
+		long record;
+		for (record = empty + 1; record <= empty + LOOKAHEAD; record++) {
+			read(record, bytes);
+			if (!empty(bytes)) {
+				return record;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether a record was never written
+	 *
+	 * @param bytes The record
+	 * @return Whether every byte is zero
+	 */
+	private static boolean empty(byte[] bytes) {
+		for (byte b : bytes) {
+			if (b != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies a record out of the file
+	 *
+	 * @param record The record number
+	 * @param bytes  Receives the record
+	 */
+	private void read(long record, byte[] bytes) {
+		long offset = (record + 1) * RECORD;
+		region((int) (offset / REGION)).get((int) (offset % REGION), bytes);
+	}
+
+	/**
+	 * Gets a mapped region, mapping it the first time, which makes the file
+	 * longer if needed
+	 *
+	 * @param number The region number
+	 * @return The region
+	 */
+	private MappedByteBuffer region(int number) {
+		MappedByteBuffer mapped = regions.get(number);
+		if (mapped != null) {
+			return mapped;
+		}
+		return regions.computeIfAbsent(number, key -> {
+			try {
+				return channel.map(FileChannel.MapMode.READ_WRITE, (long) key * REGION, REGION);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Adds a result to the results of a player
+	 *
+	 * @param name  The player's name
+	 * @param time  The time of the game in seconds
+	 * @param score The score of the game
+	 */
+	private void index(String name, int time, int score) {
+		players.merge(name, new Player(name, 1, time, score, score, time), Player::add);
+	}
+
+	/**
+	 * Reads the name in a record
+	 *
+	 * @param bytes The record
+	 * @return The name
+	 */
+	private static String name(byte[] bytes) {
+		int end = CHECKSUM - NAME;
+		while (end < CHECKSUM && bytes[end] != 0) {
+			end++;
+		}
+		return new String(bytes, CHECKSUM - NAME, end - (CHECKSUM - NAME), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Works out the checksum of a record
+	 *
+	 * @param bytes The record
+	 * @return The checksum of every byte before the checksum
+	 */
+	private static int checksum(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, CHECKSUM);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * One result read from the file
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameResults
+	 * @param client    The client number
+	 * @param name      The player's name
+	 * @param time      The time of the game in seconds
+	 * @param score     The score of the game
+	 * @param dimension The board dimension, 0 if not known
+	 * @param hash      The configuration's hash, 0 if not known
+	 */
+	public record Result(int client, String name, int time, int score, int dimension, long hash) {
+	}
+
+	/**
+	 * The results of one player over every game in the file
+	 *
+	 * @author mos
+	 * @version 1.0
+	 * @since Java 16
+	 * @see GameResults
+	 * @param name      The player's name
+	 * @param games     The games played
+	 * @param lastTime  The time of the last game in seconds
+	 * @param lastScore The score of the last game
+	 * @param bestScore The highest score
+	 * @param bestTime  The fastest time in seconds
+	 */
+	public record Player(String name, int games, int lastTime, int lastScore, int bestScore, int bestTime) {
+		/**
+		 * Adds the results of later games
+		 *
+		 * @param later The later games
+		 * @return The results of both
+		 */
+		Player add(Player later) {
+			return new Player(name, games + later.games, later.lastTime, later.lastScore,
+					Math.max(bestScore, later.bestScore), Math.min(bestTime, later.bestTime));
+		}
+	}
+}
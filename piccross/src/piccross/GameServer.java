@@ -2,7 +2,7 @@
  * File name: GameServer.java
  * Author: Mostapha A
  * Purpose: Creates and Manages a game server
- * Class list: ButtonHandler, CheckBoxHandler, Connection
+ * Class list: ButtonHandler, CheckBoxHandler, Connection, ClientSession
  */
 
 package piccross;
@@ -12,17 +12,30 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -47,28 +60,192 @@ public class GameServer implements Runnable {
 	private static JTextArea console;
 	/** The port number */
 	private static int portNum;
-	/** The socket for the connection */
-	private static Socket sock;
+	/** The stack size of pooled connection threads when virtual threads are not available */
+	private static final long CONNECTION_STACK = 128 * 1024;
 	/** The current client and total clients */
-	static int nclient = 0, nclients = 0;
+	static final AtomicInteger nclient = new AtomicInteger(), nclients = new AtomicInteger();
 	/** The server socket for the connections */
 	static ServerSocket servsock;
 	/** The finalize checkbox */
 	private static JCheckBox finalize;
+	/** Whether the server closes when the last client disconnects */
+	private static volatile boolean finalizeOnEmpty = false;
+	/** Writes messages on its own thread so handling clients never waits on output */
+	private static final GameLog log = new GameLog("piccross-server-log");
+	/** The choice of how connections are handled */
+	private static JComboBox<String> mode;
 	/** The button to print results */
 	private static JButton results;
-	/** The current game configuration */
-	static String gameConfig = "0";
-	/** The array of all client information */
-	private static ArrayList<String[]> allInfo = new ArrayList<String[]>();
+	/** The most game configurations kept */
+	private static final int LIBRARY_SIZE = 1024;
+	/** The most bytes the game configurations kept may take, about 380 of the largest */
+	private static final long LIBRARY_BYTES = 32L << 20;
+	/** Every game configuration sent by clients, by id */
+	static final GameLibrary library = new GameLibrary(LIBRARY_SIZE, LIBRARY_BYTES);
+	/** The file the results are kept in */
+	private static Path resultsFile = Path.of("piccross-results.dat");
+	/** Every result sent to the server, null if the results file could not be opened */
+	static GameResults gameResults;
+	/** The best results of every board */
+	static final GameLeaderboard leaderboard = new GameLeaderboard();
+	/** The information of every client, by client number */
+	private static final ConcurrentHashMap<Integer, ClientRecord> allInfo = new ConcurrentHashMap<Integer, ClientRecord>();
+	/** Runs each connection's handler, null to start a new thread for each one */
+	private final ExecutorService executor;
 
 	/**
-	 * Main function that calls function to create the GUI
-	 * @param args
+	 * Creates a server that starts a new thread for each connection
+	 */
+	public GameServer() {
+		this(null);
+	}
+
+	/**
+	 * Creates a server that runs each connection on an executor
+	 * @param executor The executor for the connections, null to start a new thread for each one
+	 */
+	public GameServer(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Main function that calls function to create the GUI, or runs without a GUI
+	 * when the first argument is --headless
+	 * @param args --headless [--port number] [--mode threads|virtual|nio] [--finalize]
+	 *             [--metrics port] [--results file], or only --metrics port with the GUI
 	 */
 	public static void main(String[] args) {
-		// call the function that creates the gui
-		create();
+		if (args.length > 0 && args[0].equals("--headless")) {
+			headless(args);
+		} else {
+			// call the function that creates the gui
+			create();
+			if (args.length == 2 && args[0].equals("--metrics")) {
+				serveMetrics(parsePort(args[1]));
+			}
+		}
+	}
+
+	/**
+	 * Serves the metrics page on the loopback address
+	 * @param port The port of the page
+	 */
+	private static void serveMetrics(int port) {
+		if (port >= 0 && GameMetrics.serve(port)) {
+			write("Metrics on http://127.0.0.1:" + port + "/metrics");
+		} else {
+			write("Metrics port in use or not valid, metrics are only shown by Results");
+		}
+	}
+
+	/**
+	 * Starts the server from the arguments and reads admin commands from the
+	 * standard input
+	 * @param args The command line arguments
+	 */
+	private static void headless(String[] args) {
+		int port = 1234;
+		String serverMode = "Threads";
+		int metricsPort = -1;
+		// read the options after --headless
+		for (int i = 1; i < args.length; i++) {
+			switch (args[i]) {
+			case "--port":
+				port = i + 1 < args.length ? parsePort(args[++i]) : -1;
+				break;
+			case "--mode":
+				serverMode = i + 1 < args.length ? modeName(args[++i]) : null;
+				break;
+			case "--finalize":
+				finalizeOnEmpty = true;
+				break;
+			case "--metrics":
+				metricsPort = i + 1 < args.length ? parsePort(args[++i]) : -2;
+				break;
+			case "--results":
+				if (i + 1 < args.length) {
+					resultsFile = Path.of(args[++i]);
+				} else {
+					serverMode = null;
+				}
+				break;
+			default:
+				serverMode = null;
+				break;
+			}
+		}
+		if (port < 0 || serverMode == null || metricsPort < -1) {
+			write("Usage: GameServer --headless [--port number] [--mode threads|virtual|nio] [--finalize]"
+					+ " [--metrics port] [--results file]");
+			shutdown();
+		}
+		if (!startServer(serverMode, port)) {
+			shutdown();
+		}
+		if (metricsPort >= 0) {
+			serveMetrics(metricsPort);
+		}
+
+		// admin console on the standard input
+		write("Commands: results, finalize, end");
+		BufferedReader commands = new BufferedReader(new InputStreamReader(System.in));
+		try {
+			String command;
+			while ((command = commands.readLine()) != null) {
+				switch (command.trim().toLowerCase()) {
+				case "results":
+					printInfo();
+					break;
+				case "finalize":
+					setFinalize(!finalizeOnEmpty);
+					break;
+				case "end":
+					end();
+					break;
+				case "":
+					break;
+				default:
+					write("Unknown command " + command + ", commands are: results, finalize, end");
+					break;
+				}
+			}
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+		// with no more input the server keeps running until a client closes it with finalize
+	}
+
+	/**
+	 * Turns a mode argument into the name used by the mode choice
+	 * @param argument threads, virtual or nio
+	 * @return The mode name, or null if it is not a mode
+	 */
+	private static String modeName(String argument) {
+		switch (argument.toLowerCase()) {
+		case "threads":
+			return "Threads";
+		case "virtual":
+			return "Virtual threads";
+		case "nio":
+			return "NIO";
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Checks a port number
+	 * @param input The port typed in
+	 * @return The port, or -1 if it is not valid
+	 */
+	private static int parsePort(String input) {
+		// validate input
+		if (input.length() > 5 || input.isBlank() || !input.matches("[0-9]+")) {
+			return -1;
+		} else if (Integer.parseInt(input) < 0 || Integer.parseInt(input) > 66535) {
+			return -1;
+		}
+		return Integer.parseInt(input);
 	}
 
 	/**
@@ -90,8 +267,9 @@ public class GameServer implements Runnable {
 			}
 		});
 
-		// create the text area and scrollpane
+		// create the text area and scrollpane, the log writes to it on the event thread
 		console = new JTextArea();
+		log.setConsole(console);
 		JScrollPane consoleScroll = new JScrollPane(console);
 		console.setEditable(false);
 		console.setText("");
@@ -104,6 +282,9 @@ public class GameServer implements Runnable {
 		results.setEnabled(false);
 		JButton end = new JButton("End");
 		finalize = new JCheckBox("Finalize");
+		// threads gives each client a thread, NIO serves all clients from one selector thread
+		// virtual threads runs each client on a virtual thread (or a small pooled thread before Java 21)
+		mode = new JComboBox<String>(new String[] { "Threads", "Virtual threads", "NIO" });
 
 		execute.addActionListener(buttonHandler);
 		results.addActionListener(buttonHandler);
@@ -114,6 +295,7 @@ public class GameServer implements Runnable {
 		JPanel options = new JPanel();
 		options.add(portLabel);
 		options.add(portInput);
+		options.add(mode);
 		options.add(execute);
 		options.add(results);
 		options.add(finalize);
@@ -133,30 +315,145 @@ public class GameServer implements Runnable {
 	}
 
 	/**
-	 * Writes a message to the system console and GUI console
+	 * Writes a message to the system console and GUI console, the message is
+	 * queued so the caller never waits
 	 * @param message The message to write
 	 */
-	private static void write(String message) {
-		// write the message to console
-		console.append(message + "\n");
-		System.out.println(message);
+	static void write(String message) {
+		log.log(message);
 	}
 
 	/** Attempts to connect with a new thread */
 	public static void connect() throws IOException {
-		try {
-			servsock = new ServerSocket(portNum);
-			Thread newThread = new Thread(new GameServer());
-			newThread.start();
-			write("Server on " + InetAddress.getLocalHost() + " port " + portNum);
-			// grey out execute button
+		if (startServer((String) mode.getSelectedItem(), portNum)) {
+			// grey out execute button and mode choice
 			execute.setEnabled(false);
+			mode.setEnabled(false);
 			results.setEnabled(true);
+		}
+	}
+
+	/**
+	 * Starts accepting clients
+	 * @param serverMode Threads, Virtual threads or NIO
+	 * @param port The port number
+	 * @return Whether the server started
+	 */
+	static boolean startServer(String serverMode, int port) {
+		openResults();
+		try {
+			Thread newThread;
+			if ("NIO".equals(serverMode)) {
+				// one thread serves every client
+				newThread = new Thread(new GameNioServer(port), "piccross-nio");
+			} else if ("Virtual threads".equals(serverMode)) {
+				// each client runs on the executor instead of its own platform thread
+				servsock = new ServerSocket(port);
+				newThread = new Thread(new GameServer(connectionExecutor()));
+			} else {
+				servsock = new ServerSocket(port);
+				newThread = new Thread(new GameServer());
+			}
+			newThread.start();
+			GameMetrics.listening(port);
+			write("Server on " + InetAddress.getLocalHost() + " port " + port + " (" + serverMode + ")");
+			return true;
 		} catch (Exception e) {
 			System.out.println(e);
 			write("Port Number in use try again");
+			return false;
+		}
+	}
+
+	/**
+	 * Opens the results file and reads the results kept in it, the server runs
+	 * without keeping results if it cannot be opened
+	 */
+	private static void openResults() {
+		if (gameResults != null) {
+			return;
+		}
+		try {
+			// the leaderboard is rebuilt while the file is read
+			gameResults = new GameResults(resultsFile, result -> leaderboard.add(result.name(), result.time(),
+					result.score(), result.dimension(), result.hash()));
+			// client numbers carry on from the ones in the file
+			nclient.accumulateAndGet(gameResults.lastClient(), Math::max);
+			write("Results kept in " + resultsFile.toAbsolutePath() + ", " + gameResults.size() + " games by "
+					+ gameResults.players().size() + " players");
+			if (gameResults.damaged() > 0) {
+				write(gameResults.damaged() + " results were cut short when the server stopped and were skipped");
+			}
+		} catch (IOException | RuntimeException e) {
+			System.out.println(e);
+			write("Results file " + resultsFile + " could not be opened, results will not be kept");
+		}
+	}
+
+	/**
+	 * Closes the server socket and exits
+	 */
+	static void end() {
+		try {
+			// stop accepting, clients see the connection close when the server exits
+			if (servsock != null)
+			servsock.close();
+		} catch (IOException e1) {
+			// TODO Auto-generated catch block
+			e1.printStackTrace();
+		}
+		shutdown();
+	}
+
+	/**
+	 * Gives the log a moment to write what is queued then exits
+	 */
+	static void shutdown() {
+		if (gameResults != null) {
+			gameResults.close();
+		}
+		log.flush(1000);
+		System.exit(0);
+	}
+
+	/**
+	 * Changes whether the server closes when there are no more connections
+	 * @param on Whether to close when the last client leaves
+	 */
+	static void setFinalize(boolean on) {
+		finalizeOnEmpty = on;
+		// print message depending on status
+		if (on) {
+			write("Server will close when there are no more connections");
+			if (nclients.get() == 0) {
+				shutdown();
+			}
+		} else {
+			write("Server will remain open when there are no more connections");
+		}
+	}
+
+	/**
+	 * Creates the executor for the virtual threads mode. Virtual threads are used
+	 * when the running Java has them (21 and later), otherwise a cached pool of
+	 * daemon threads with a small stack so many idle clients fit without -Xss
+	 * @return The executor for connections
+	 */
+	static ExecutorService connectionExecutor() {
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			write("Connections run on virtual threads");
+			return (ExecutorService) virtual.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			write("Virtual threads not available, connections run on pooled threads");
+			AtomicInteger count = new AtomicInteger();
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(null, task, "piccross-connection-" + count.incrementAndGet(),
+						CONNECTION_STACK);
+				thread.setDaemon(true);
+				return thread;
+			});
 		}
-		
 	}
 
 	/**
@@ -185,13 +482,11 @@ public class GameServer implements Runnable {
 				String input = portInput.getText();
 
 				// validate input
-				if (input.length() > 5 || input.isBlank() || !input.matches("[0-9]+")) {
-					write("Port must be an integer number from 0 to 66535, try again");
-				} else if (Integer.parseInt(input) < 0 || Integer.parseInt(input) > 66535) {
+				if (parsePort(input) < 0) {
 					write("Port must be an integer number from 0 to 66535, try again");
 				} else {
 					// if it is valid establish server on port
-					portNum = Integer.parseInt(input);
+					portNum = parsePort(input);
 					try {
 						connect();
 
@@ -208,14 +503,7 @@ public class GameServer implements Runnable {
 				break;
 			case "End":
 				// close server
-				try {
-					if (nclients > 0)
-					sock.close();
-				} catch (IOException e1) {
-					// TODO Auto-generated catch block
-					e1.printStackTrace();
-				}
-				System.exit(0);
+				end();
 				break;
 			}
 		}
@@ -238,38 +526,54 @@ public class GameServer implements Runnable {
 		 */
 		@Override
 		public void itemStateChanged(ItemEvent e) {
-			// print message depending on status
-			if (finalize.isSelected() == true) {
-				write("Server will close when there are no more connections");
-				if (nclients == 0) {
-					System.exit(0);
-				}
-			} else {
-				write("Server will remain open when there are no more connections");
-			}
-
+			setFinalize(finalize.isSelected());
 		}
 	}// end check box handler class
 
 	/**
-	 * Prints the information in the array of client information
+	 * Prints the information of every client
 	 */
 	public static void printInfo() {
-		// loop through our clients and print information
+		// copy the records first, each record is complete so the copy is consistent
+		ArrayList<ClientRecord> snapshot = new ArrayList<ClientRecord>(allInfo.values());
+		snapshot.sort(Comparator.comparingInt(ClientRecord::id));
 		String scoreTime;
 		// if we have no clients write so
-		if (allInfo.size() == 0) {
+		if (snapshot.size() == 0) {
 			write("No clients connected");
 		}
-		for (String[] client : allInfo) {
+		for (ClientRecord client : snapshot) {
 			// if they have no score and time print info accordingly
-			if (Integer.parseInt(client[1]) == 0) {
+			if (client.time() == 0) {
 				scoreTime = "has not finished a game";
 			} else {
-				scoreTime = "last played game took " + client[1] + " seconds and scored " + client[2] + " points";
+				scoreTime = "last played game took " + client.time() + " seconds and scored " + client.score()
+						+ " points";
 			}
 			// write each clients information
-			write("Client " + client[3] + " (" + client[0] + ") " + scoreTime);
+			write("Client " + client.id() + " (" + client.name() + ") " + scoreTime);
+		}
+		// every game kept in the results file, by player
+		if (gameResults != null) {
+			for (GameResults.Player player : gameResults.players()) {
+				write("Player " + player.name() + " played " + player.games() + " games, best score "
+						+ player.bestScore() + ", fastest time " + player.bestTime() + " seconds, last game "
+						+ player.lastTime() + " seconds and " + player.lastScore() + " points");
+			}
+			write(gameResults.size() + " games kept, written to the disk " + gameResults.commits() + " times");
+		}
+		// the best three of every dimension
+		for (int dimension : leaderboard.dimensions()) {
+			write(dimension + "x" + dimension + " best scores: "
+					+ GameProtocol.leadersText(leaderboard.top(dimension, 0, 3, false)) + ", fastest: "
+					+ GameProtocol.leadersText(leaderboard.top(dimension, 0, 3, true)));
+		}
+		write("Puzzle library: " + library);
+		// compare the cost of the text and binary protocols
+		write("Protocol 1 (text): " + GameProtocol.V1);
+		write("Protocol 2 (binary): " + GameProtocol.V2);
+		for (String line : GameMetrics.summary()) {
+			write(line);
 		}
 	}
 
@@ -279,19 +583,29 @@ public class GameServer implements Runnable {
 	public void run() {
 		// loop indefinitely
 		for (;;) {
+			Socket sock;
 			// try to establish a connection
 			try {
 				// new client
 				sock = servsock.accept();
-				nclient += 1;
-				nclients += 1;
+				nclients.incrementAndGet();
+				GameMetrics.accepted();
 				write("Connecting " + sock.getInetAddress() + " in port " + sock.getPort());
 			} catch (IOException ioe) {
 				System.out.println(ioe);
+				// stop if the server socket was closed
+				if (servsock.isClosed()) {
+					return;
+				}
+				continue;
 			}
 			// new object that recieves info from client
-			Connection clientConnection = new Connection(sock, nclient);
-			clientConnection.start();
+			Connection clientConnection = new Connection(sock, nclient.incrementAndGet());
+			if (executor != null) {
+				executor.execute(clientConnection);
+			} else {
+				new Thread(clientConnection).start();
+			}
 		}
 	}
 
@@ -300,17 +614,11 @@ public class GameServer implements Runnable {
 	 * @author moabd
 	 *
 	 */
-	class Connection extends Thread {
+	class Connection implements Runnable {
 		/** Socket for connection */
 		Socket sock;
-		/** The unique client number */
-		Integer clientid;
-		/** The clients name */
-		String clientName;
-		/** A descriptor of the information received */
-		String infoType;
-		/** An array for the clients information */
-		String[] clientInfo = new String[4];
+		/** The protocol state of this client */
+		ClientSession session;
 
 		/**
 		 * The constructor of the class
@@ -320,7 +628,7 @@ public class GameServer implements Runnable {
 		public Connection(Socket socket, int nclient) {
 			// receive the socket previously established a connection with
 			sock = socket;
-			clientid = nclient;
+			session = new ClientSession(nclient, sock.getInetAddress().toString());
 		}
 
 		/**
@@ -328,7 +636,6 @@ public class GameServer implements Runnable {
 		 */
 		public void run() {
 			String clientData;
-			String returnInfo;
 			PrintStream clientOutput = null;
 			try {
 				// set the stream we will be printing to
@@ -336,86 +643,438 @@ public class GameServer implements Runnable {
 				// set the reader we will be receiving from
 				BufferedReader clientInput = new BufferedReader(new InputStreamReader(sock.getInputStream()));
 				// send the client their client number
-				clientOutput.println(clientid);
+				clientOutput.println(session.clientid);
 				// receive first info back
 				clientData = clientInput.readLine();
 
-				// initialize our client info array
-				clientInfo[0] = "No name recorded";
-				clientInfo[1] = "0";
-				clientInfo[2] = "0";
-				clientInfo[3] = clientid.toString();
-				// store our client in all information array
-				allInfo.add(clientInfo);
-
-				// loop until end protocol
-				while (!clientData.equals(clientid + "#P0#0")) {
-					// default return value
-					returnInfo = "0";
-					// case structure depending on input
-					String[] input = clientData.split("#");
-					switch (input[1]) {
-					case "P1":
-						// receiving game configuration
-						gameConfig = input[2];
-						infoType = "a game configuration (" + gameConfig + ")";
-						break;
-					case "P2":
-						// receiving user name
-						clientInfo[0] = input[2];
-						clientName = input[2];
-						infoType = "their name";
-						break;
-					case "P3":
-						// receiving time and score
-						clientInfo[1] = input[2];
-						clientInfo[2] = input[3];
-						infoType = "their time (" + clientInfo[1] + ") and score (" + clientInfo[2] + ")";
-						break;
-					case "P4":
-						// receiving a request for a game configuration
-						returnInfo = gameConfig;
-					default:
-
-						break;
-					}
-					// write to console what was received
-					write("Client " + clientid + " (" + clientName + ") sent " + infoType);
+				// loop until end protocol, the client drops or asks for the binary protocol
+				while (clientData != null && !session.isClosing(clientData)) {
 					// send something back
-					clientOutput.println(clientid + "#" + returnInfo);
-					
-					// update info array
-					int i = 0;
-					for(i = 0; i < allInfo.size(); i++) {
-						if (allInfo.get(i)[3].equals(clientid.toString())) {
-							allInfo.set(i, clientInfo);
-							break;
-						}
-					}
+					clientOutput.println(session.handle(clientData));
 
 					// flush and receive next input
 					clientOutput.flush();
+					if (session.version == GameProtocol.VERSION) {
+						// the client waits for the reply before sending frames so nothing is buffered
+						runBinary();
+						return;
+					}
 					clientData = clientInput.readLine();
 				}
 				// if they sent end protocol
-				write("Disconnecting client " + clientid + " (" + clientName + ") at " + sock.getInetAddress());
-				clientOutput.println(clientid + "#Closing Connection");
+				clientOutput.println(session.closingReply(sock.getInetAddress().toString()));
 				// close socket
 				sock.close();
-				
-				// decrease client number
-				nclients -= 1;
-				write("There are " + nclients + " clients connected");
-				
-				// if finalize is checked and there are no clients automatically close the
-				// server
-				if (finalize.isSelected() && nclients == 0) {
-					write("Closing server...");
-					System.exit(0);
-				}
 			} catch (IOException ioe) {
 				System.out.println(ioe);
+			} finally {
+				session.disconnect();
+			}
+		}
+
+		/**
+		 * Handles binary frames until the end protocol or the client drops
+		 * @throws IOException If the connection fails
+		 */
+		private void runBinary() throws IOException {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(sock.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(sock.getOutputStream()));
+			GameProtocol.Frame frame;
+			while ((frame = GameProtocol.read(in)) != null) {
+				GameProtocol.write(out, session.handle(frame));
+				out.flush();
+				if (frame.opcode() == GameProtocol.P0) {
+					break;
+				}
+			}
+			sock.close();
+		}
+	}
+
+	/**
+	 * The protocol state of one client, used by every kind of connection so they
+	 * all understand the same messages
+	 * @author mos
+	 *
+	 */
+	static class ClientSession {
+		/** The unique client number */
+		Integer clientid;
+		/** The clients name */
+		String clientName;
+		/** A descriptor of the information received */
+		String infoType;
+		/** The clients information, replaced in all information on every update */
+		ClientRecord clientInfo;
+		/** Whether the client has already been counted as disconnected */
+		private boolean disconnected = false;
+		/** The protocol version the client uses, 1 until it asks for the binary protocol */
+		int version = 1;
+
+		/**
+		 * Creates the state for a new client and stores it with all client information
+		 * @param nclient The unique client number
+		 * @param address The client's address
+		 */
+		ClientSession(int nclient, String address) {
+			clientid = nclient;
+			// store our client in all information
+			clientInfo = ClientRecord.connected(clientid, address);
+			allInfo.put(clientid, clientInfo);
+		}
+
+		/**
+		 * Checks whether a message is the end protocol
+		 * @param clientData The message received
+		 * @return Whether the client is closing
+		 */
+		boolean isClosing(String clientData) {
+			return clientData.equals(clientid + "#P0#0");
+		}
+
+		/**
+		 * Handles one text message from the client
+		 * @param clientData The message received, id#Pn#data
+		 * @return The reply to send back
+		 */
+		String handle(String clientData) {
+			// default return value
+			String returnInfo = "0";
+			// split the message and parse any numbers before acting on it
+			long start = System.nanoTime();
+			String[] input = clientData.split("#");
+			String type = input.length > 1 ? input[1] : "";
+			int counted = GameMetrics.type(type);
+			GameProtocol.Result result = null;
+			GameProtocol.Query query = null;
+			GameProtocol.Fetch fetch = null;
+			GameBoard board = null;
+			try {
+				// the data may have more than one part, time#score#dimension#hash
+				String data = input.length > 2 ? clientData.substring(input[0].length() + type.length() + 2) : "";
+				if (type.equals("P1") && !data.equals("0")) {
+					board = GameCodec.decode(data);
+				} else if (type.equals("P4")) {
+					fetch = GameProtocol.Fetch.parse(data);
+				} else if (type.equals("P3")) {
+					result = GameProtocol.Result.parse(data);
+				} else if (type.equals("P6")) {
+					query = GameProtocol.Query.parse(data);
+				}
+			} catch (IllegalArgumentException e) {
+				// leave the value null so it is reported as invalid
+			}
+			GameProtocol.V1.received(clientData.length() + 1, System.nanoTime() - start);
+
+			// case structure depending on input
+			switch (type) {
+			case "V":
+				// asking for the binary protocol, replying agrees to it
+				if (input.length > 2 && input[2].equals(Integer.toString(GameProtocol.VERSION))) {
+					version = GameProtocol.VERSION;
+					write("Client " + clientid + " (" + clientName + ") uses protocol version " + version);
+					String agreed = GameProtocol.helloReply(clientid.toString());
+					GameProtocol.V1.sent(agreed.length() + 1);
+					GameMetrics.handled(1, counted, System.nanoTime() - start);
+					return agreed;
+				}
+				break;
+			case "P1":
+				// receiving game configuration, the reply is its id
+				GameLibrary.Puzzle stored = receiveConfig(board);
+				if (stored != null) {
+					returnInfo = Long.toHexString(stored.getHash());
+				}
+				break;
+			case "P2":
+				// receiving user name
+				receiveName(input.length > 2 ? input[2] : "");
+				break;
+			case "P3":
+				// receiving time and score
+				receiveResult(result);
+				break;
+			case "P4":
+				// receiving a request for a game configuration
+				GameLibrary.Puzzle puzzle = requestConfig(fetch);
+				if (puzzle != null) {
+					returnInfo = puzzle.getText();
+				}
+				break;
+			case "P6":
+				// receiving a request for the leaderboard
+				returnInfo = GameProtocol.leadersText(requestLeaders(query));
+				break;
+			default:
+
+				break;
+			}
+			received();
+			String reply = clientid + "#" + returnInfo;
+			GameProtocol.V1.sent(reply.length() + 1);
+			GameMetrics.handled(1, counted, System.nanoTime() - start);
+			return reply;
+		}
+
+		/**
+		 * Handles one binary message from the client
+		 * @param frame The message received
+		 * @return The reply to send back, closing the connection after it if the
+		 *         message was P0
+		 */
+		GameProtocol.Frame handle(GameProtocol.Frame frame) {
+			// unpack the payload before acting on it
+			long start = System.nanoTime();
+			GameBoard board = null;
+			GameProtocol.Fetch fetch = null;
+			String name = null;
+			GameProtocol.Result result = null;
+			GameProtocol.Result[] results = null;
+			GameProtocol.Query query = null;
+			try {
+				switch (frame.opcode()) {
+				case GameProtocol.P1:
+					board = GameCodec.fromBytes(frame.payload());
+					break;
+				case GameProtocol.P4:
+					fetch = GameProtocol.unpackFetch(frame.payload());
+					break;
+				case GameProtocol.P2:
+					name = GameProtocol.unpackText(frame.payload());
+					break;
+				case GameProtocol.P3:
+					result = GameProtocol.unpackResult(frame.payload());
+					break;
+				case GameProtocol.P5:
+					results = GameProtocol.unpackResults(frame.payload());
+					break;
+				case GameProtocol.P6:
+					query = GameProtocol.unpackQuery(frame.payload());
+					break;
+				default:
+					break;
+				}
+			} catch (IllegalArgumentException e) {
+				// leave the value null so it is reported as invalid
+			}
+			GameProtocol.V2.received(frame.size(), System.nanoTime() - start);
+
+			byte[] reply = new byte[0];
+			switch (frame.opcode()) {
+			case GameProtocol.P0:
+				// the client is leaving
+				String closing = closingReply(clientInfo.address());
+				reply = GameProtocol.packText(closing.substring(closing.indexOf('#') + 1));
+				break;
+			case GameProtocol.P1:
+				// receiving game configuration, the reply is its id
+				GameLibrary.Puzzle stored = receiveConfig(board);
+				if (stored != null) {
+					reply = GameProtocol.packId(stored.getHash());
+				}
+				received();
+				break;
+			case GameProtocol.P2:
+				// receiving user name
+				receiveName(name);
+				received();
+				break;
+			case GameProtocol.P3:
+				// receiving time and score
+				receiveResult(result);
+				received();
+				break;
+			case GameProtocol.P4:
+				// receiving a request for a game configuration, sent as it is kept
+				GameLibrary.Puzzle puzzle = requestConfig(fetch);
+				reply = puzzle == null ? GameProtocol.packConfig("0") : puzzle.getPacked();
+				received();
+				break;
+			case GameProtocol.P5:
+				// receiving several times and scores, the reply is how many were stored
+				reply = GameProtocol.packInts(receiveResults(results));
+				received();
+				break;
+			case GameProtocol.P6:
+				// receiving a request for the leaderboard
+				reply = GameProtocol.packLeaders(requestLeaders(query));
+				received();
+				break;
+			default:
+				received();
+				break;
+			}
+			GameProtocol.Frame replyFrame = new GameProtocol.Frame(frame.opcode(), frame.correlation(), reply);
+			GameProtocol.V2.sent(replyFrame.size());
+			if (frame.opcode() != GameProtocol.P0) {
+				// the end protocol is counted by the closing reply
+				GameMetrics.handled(version, GameMetrics.type(frame.opcode()), System.nanoTime() - start);
+			}
+			return replyFrame;
+		}
+
+		/**
+		 * Stores a game configuration sent by the client in the library
+		 * @param board The configuration, null if it was invalid or empty
+		 * @return The puzzle kept, null if there was none
+		 */
+		private GameLibrary.Puzzle receiveConfig(GameBoard board) {
+			if (board == null) {
+				infoType = "an invalid game configuration";
+				return null;
+			}
+			GameLibrary.Puzzle stored = library.add(board);
+			if (stored == null) {
+				infoType = "a game configuration whose ids are all taken";
+				return null;
+			}
+			infoType = "a game configuration (" + stored.getDimension() + "x" + stored.getDimension() + ", id "
+					+ Long.toHexString(stored.getHash()) + ")";
+			return stored;
+		}
+
+		/**
+		 * Stores the client's name, cut to GameProtocol.MAX_NAME characters
+		 * @param name The name
+		 */
+		private void receiveName(String name) {
+			name = GameProtocol.name(name);
+			clientInfo = clientInfo.withName(name);
+			clientName = name;
+			infoType = "their name";
+		}
+
+		/**
+		 * Stores the time and score of the client's game
+		 * @param result The time and score, null if they were invalid
+		 */
+		private void receiveResult(GameProtocol.Result result) {
+			if (result == null || !result.valid()) {
+				infoType = "an invalid time and score";
+				return;
+			}
+			clientInfo = clientInfo.withResult(result.time(), result.score());
+			keep(result);
+			infoType = "their time (" + clientInfo.time() + ") and score (" + clientInfo.score() + ")";
+		}
+
+		/**
+		 * Stores the times and scores of several of the client's games up to the
+		 * first one that is not valid, the last one stored is kept as their latest
+		 * result
+		 * @param results The times and scores, null if they were invalid
+		 * @return The amount stored, the results before the first invalid one
+		 */
+		private int receiveResults(GameProtocol.Result[] results) {
+			if (results == null || results.length == 0) {
+				infoType = "an invalid batch of times and scores";
+				return 0;
+			}
+			int stored = 0;
+			for (GameProtocol.Result result : results) {
+				// the client drops the result after the ones stored and sends the rest again
+				if (!result.valid()) {
+					break;
+				}
+				clientInfo = clientInfo.withResult(result.time(), result.score());
+				keep(result);
+				stored++;
+			}
+			infoType = stored + " of " + results.length + " times and scores, the last time (" + clientInfo.time()
+					+ ") and score (" + clientInfo.score() + ")";
+			return stored;
+		}
+
+		/**
+		 * Adds a time and score to the results file and the leaderboard, under the
+		 * name the file keeps so the leaderboard is the same after a restart
+		 * @param result The time and score
+		 */
+		private void keep(GameProtocol.Result result) {
+			String name = GameResults.keptName(clientInfo.name());
+			if (GameServer.gameResults != null) {
+				GameServer.gameResults.add(clientid, name, result.time(), result.score(), result.dimension(),
+						result.hash());
+			}
+			leaderboard.add(name, result.time(), result.score(), result.dimension(), result.hash());
+		}
+
+		/**
+		 * Gets the best results the client asked for
+		 * @param query The request, null if it was invalid
+		 * @return The results, best first
+		 */
+		private List<GameLeaderboard.Entry> requestLeaders(GameProtocol.Query query) {
+			if (query == null) {
+				infoType = "an invalid leaderboard request";
+				return List.of();
+			}
+			infoType = "a leaderboard request (" + query + ")";
+			return leaderboard.top(query.dimension(), query.hash(), Math.min(query.count(), GameLeaderboard.SIZE),
+					query.byTime());
+		}
+
+		/**
+		 * Gets the game configuration the client asked for from the library
+		 * @param fetch The request, null if it was invalid
+		 * @return The configuration, null if there is none
+		 */
+		private GameLibrary.Puzzle requestConfig(GameProtocol.Fetch fetch) {
+			if (fetch == null) {
+				infoType = "an invalid game configuration request";
+				return null;
+			}
+			infoType = "a request for a game configuration (" + fetch + ")";
+			if (fetch.hash() != 0) {
+				return library.byHash(fetch.hash());
+			}
+			return fetch.dimension() != 0 ? library.byDimension(fetch.dimension()) : library.newest();
+		}
+
+		/**
+		 * Writes what was received and updates the client's information
+		 */
+		private void received() {
+			// write to console what was received
+			write("Client " + clientid + " (" + clientName + ") sent " + infoType);
+
+			// update info, replacing the record is a single step for readers
+			clientInfo = clientInfo.seen();
+			allInfo.put(clientid, clientInfo);
+		}
+
+		/**
+		 * Writes that the client is leaving
+		 * @param address The client's address
+		 * @return The reply to the end protocol
+		 */
+		String closingReply(String address) {
+			long start = System.nanoTime();
+			write("Disconnecting client " + clientid + " (" + clientName + ") at " + address);
+			String reply = clientid + "#Closing Connection";
+			GameMetrics.handled(version, GameMetrics.P0, System.nanoTime() - start);
+			return reply;
+		}
+
+		/**
+		 * Counts the client as gone, closing the server if finalize is checked and it
+		 * was the last client
+		 */
+		void disconnect() {
+			if (disconnected) {
+				return;
+			}
+			disconnected = true;
+			// decrease client number
+			int remaining = nclients.decrementAndGet();
+			write("There are " + remaining + " clients connected");
+
+			// if finalize is checked and there are no clients automatically close the
+			// server
+			if (finalizeOnEmpty && remaining == 0) {
+				write("Closing server...");
+				shutdown();
 			}
 		}
 	}
-}
+}
\ No newline at end of file
@@ -0,0 +1,456 @@
+/*
+ * File name: GameSolver.java
+ * Author: Mostapha A
+ * Purpose: Checks that a board can be solved from its hints with one answer
+ * Class list: GameModel.java, GameBoard.java, GameSolver.java
+ */
+
+package piccross;
+
+/**
+ * GameSolver class is a line solver for piccross boards. It works out the
+ * hints of a solution then solves the rows and columns one at a time from only
+ * those hints, re-solving any line that crosses a newly found cell. If every
+ * cell is found the board has exactly one answer and can be solved by logic
+ * alone.
+ * <p>
+ * All arrays are made when the solver is created (or grows), so solving a
+ * board does not allocate.
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameModel.java, GameBoard.java
+ * @since Java 16
+ */
+public class GameSolver {
+	/**
+	 * The divisor in candidates * dimension / REPAIR_SCALE, the cells of a row one
+	 * repair fills, so a row's share reaches its cap of half at dimension
+	 * REPAIR_SCALE / 2, the largest board
+	 */
+	private static final int REPAIR_SCALE = 400;
+	/** The largest dimension the arrays can currently hold */
+	private int capacity = 0;
+	/** The amount of longs used by one row of the known cell masks */
+	private int rowWords;
+	/** Known true/1 cells, one bit per cell, packed by row */
+	private long[] knownFilled;
+	/** Known false/0 cells, one bit per cell, packed by row */
+	private long[] knownEmpty;
+	/** The hints for each row */
+	private int[][] rowHints;
+	/** The amount of hints for each row */
+	private int[] rowHintCount;
+	/** The hints for each column */
+	private int[][] columnHints;
+	/** The amount of hints for each column */
+	private int[] columnHintCount;
+	/** Lines waiting to be solved, rows are 0 to dimension - 1, columns follow */
+	private int[] queue;
+	/** Whether a line is already waiting in the queue */
+	private boolean[] queued;
+	/** The known true/1 cells of the line being solved */
+	private long[] lineFilled;
+	/** The known false/0 cells of the line being solved */
+	private long[] lineEmpty;
+	/** The cells found while solving the current line */
+	private long[] lineChanged;
+	/** Amount of known false/0 cells before each position of the line */
+	private int[] emptyBefore;
+	/** Whether the start of the line can hold the first hints */
+	private boolean[] prefix;
+	/** Whether the end of the line can hold the last hints */
+	private boolean[] suffix;
+	/** Counts the placements covering each cell of the line */
+	private int[] cover;
+	/** The amount of cells found by the last solve */
+	private int knownCells;
+
+	/**
+	 * Creates a solver that can hold boards up to a dimension, it grows if a
+	 * larger board is solved
+	 *
+	 * @param dimension The largest expected dimension
+	 */
+	public GameSolver(int dimension) {
+		ensureCapacity(dimension);
+	}
+
+	/**
+	 * Makes sure the arrays can hold a board of a dimension
+	 *
+	 * @param dimension The board dimension
+	 */
+	private void ensureCapacity(int dimension) {
+		if (dimension <= capacity) {
+			return;
+		}
+		capacity = dimension;
+		rowWords = (dimension + 63) >>> 6;
+		knownFilled = new long[dimension * rowWords];
+		knownEmpty = new long[dimension * rowWords];
+		// a line of n cells has at most (n + 1) / 2 hints
+		int maxHints = (dimension + 1) / 2;
+		rowHints = new int[dimension][maxHints];
+		rowHintCount = new int[dimension];
+		columnHints = new int[dimension][maxHints];
+		columnHintCount = new int[dimension];
+		queue = new int[dimension * 2];
+		queued = new boolean[dimension * 2];
+		lineFilled = new long[rowWords];
+		lineEmpty = new long[rowWords];
+		lineChanged = new long[rowWords];
+		emptyBefore = new int[dimension + 1];
+		prefix = new boolean[(maxHints + 1) * (dimension + 1)];
+		suffix = new boolean[(maxHints + 1) * (dimension + 2)];
+		cover = new int[dimension + 1];
+	}
+
+	/**
+	 * Solves a board using only the hints of its solution
+	 *
+	 * @param board The board holding the solution
+	 * @return Whether every cell could be found, meaning one answer exists
+	 */
+	public boolean solve(GameBoard board) {
+		int dimension = board.getDimension();
+		ensureCapacity(dimension);
+		computeHints(board, dimension);
+
+		// start with every cell unknown
+		int i;
+		for (i = 0; i < dimension * rowWords; i++) {
+			knownFilled[i] = 0L;
+			knownEmpty[i] = 0L;
+		}
+		knownCells = 0;
+
+		// every line starts in the queue
+		int lines = dimension * 2;
+		for (i = 0; i < lines; i++) {
+			queue[i] = i;
+			queued[i] = true;
+		}
+		int head = 0;
+		int size = lines;
+
+		// solve lines until nothing new is found
+		while (size > 0) {
+			int line = queue[head];
+			queued[line] = false;
+			head = (head + 1) % lines;
+			size--;
+
+			int found = solveLine(line, dimension);
+			if (found < 0) {
+				// the hints contradict, can only happen with a broken board
+				return false;
+			}
+			if (found == 0) {
+				continue;
+			}
+			// queue the crossing lines of every cell found in this line
+			int offset = line < dimension ? dimension : 0;
+			int cell;
+			for (cell = 0; cell < dimension; cell++) {
+				int crossing = offset + cell;
+				if (bit(lineChanged, cell) && !queued[crossing]) {
+					queue[(head + size) % lines] = crossing;
+					queued[crossing] = true;
+					size++;
+				}
+			}
+		}
+		return knownCells == dimension * dimension;
+	}
+
+	/**
+	 * Repairs a board the last solve could not finish by filling unknown cells
+	 * that are false/0 in the solution in each unsolved row. Every unsolved row
+	 * has such a cell, so repeating solve and repair reaches a board with one
+	 * answer. How many cells of a row are filled is given by repairShare, small
+	 * boards get one cell a row so they change as little as possible, larger
+	 * boards get more spread along the row since each solve costs more and would
+	 * otherwise be repeated many times
+	 *
+	 * @param board The board that was solved
+	 * @return The amount of cells filled
+	 */
+	public int repair(GameBoard board) {
+		int dimension = board.getDimension();
+		int filled = 0;
+		int row;
+		int column;
+		for (row = 0; row < dimension; row++) {
+			// count the cells that can be filled
+			int candidates = 0;
+			for (column = 0; column < dimension; column++) {
+				if (!isKnown(column, row) && board.getSolution(column, row) == 0) {
+					candidates++;
+				}
+			}
+			if (candidates == 0) {
+				continue;
+			}
+			// fill a share of them that grows with the board, spread evenly
+			int wanted = repairShare(candidates, dimension);
+			int step = candidates / wanted;
+			int seen = 0;
+			for (column = 0; column < dimension && wanted > 0; column++) {
+				if (!isKnown(column, row) && board.getSolution(column, row) == 0) {
+					if (seen % step == 0) {
+						board.setSolution(column, row, true);
+						filled++;
+						wanted--;
+					}
+					seen++;
+				}
+			}
+		}
+		return filled;
+	}
+
+	/**
+	 * Works out how many of a row's unknown false cells one repair fills,
+	 * dimension / REPAIR_SCALE of them, at least one and at most half. A row
+	 * has at most dimension candidates, so boards under 20, whose cell count is
+	 * under REPAIR_SCALE, always get one
+	 *
+	 * @param candidates The unknown cells of the row that are false/0, at least 1
+	 * @param dimension  The board dimension
+	 * @return The amount of cells to fill
+	 */
+	static int repairShare(int candidates, int dimension) {
+		return Math.max(1, Math.min(candidates / 2, candidates * dimension / REPAIR_SCALE));
+	}
+
+	/**
+	 * Works out the row and column hints of the solution
+	 *
+	 * @param board     The board holding the solution
+	 * @param dimension The board dimension
+	 */
+	private void computeHints(GameBoard board, int dimension) {
+		int i;
+		int j;
+		for (i = 0; i < dimension; i++) {
+			int rowRun = 0;
+			int columnRun = 0;
+			rowHintCount[i] = 0;
+			columnHintCount[i] = 0;
+			for (j = 0; j <= dimension; j++) {
+				// row i reads along columns, column i reads along rows
+				if (j < dimension && board.getSolution(j, i) == 1) {
+					rowRun++;
+				} else if (rowRun > 0) {
+					rowHints[i][rowHintCount[i]++] = rowRun;
+					rowRun = 0;
+				}
+				if (j < dimension && board.getSolution(i, j) == 1) {
+					columnRun++;
+				} else if (columnRun > 0) {
+					columnHints[i][columnHintCount[i]++] = columnRun;
+					columnRun = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solves a single line, finding every cell that is the same in all the ways
+	 * the hints fit the line
+	 *
+	 * @param line      The line, rows are 0 to dimension - 1, columns follow
+	 * @param dimension The board dimension
+	 * @return The amount of cells found, or -1 if the hints cannot fit
+	 */
+	private int solveLine(int line, int dimension) {
+		int n = dimension;
+		int[] hints = line < n ? rowHints[line] : columnHints[line - n];
+		int k = line < n ? rowHintCount[line] : columnHintCount[line - n];
+		int i;
+		int j;
+
+		// copy the known cells of the line into line masks
+		for (i = 0; i < rowWords; i++) {
+			lineFilled[i] = 0L;
+			lineEmpty[i] = 0L;
+			lineChanged[i] = 0L;
+		}
+		emptyBefore[0] = 0;
+		for (i = 0; i < n; i++) {
+			int column = line < n ? i : line - n;
+			int row = line < n ? line : i;
+			if (isFilled(column, row)) {
+				lineFilled[i >>> 6] |= 1L << i;
+			}
+			boolean empty = isEmpty(column, row);
+			if (empty) {
+				lineEmpty[i >>> 6] |= 1L << i;
+			}
+			emptyBefore[i + 1] = emptyBefore[i] + (empty ? 1 : 0);
+		}
+
+		// prefix[j][i]: the first i cells can hold the first j hints
+		int width = n + 1;
+		prefix[0] = true;
+		for (i = 1; i <= n; i++) {
+			prefix[i] = prefix[i - 1] && !bit(lineFilled, i - 1);
+		}
+		for (j = 1; j <= k; j++) {
+			int length = hints[j - 1];
+			prefix[j * width] = false;
+			for (i = 1; i <= n; i++) {
+				// cell i - 1 is left empty
+				boolean fits = prefix[j * width + i - 1] && !bit(lineFilled, i - 1);
+				// or hint j - 1 ends at cell i - 1
+				int start = i - length;
+				if (!fits && start >= 0 && emptyBefore[i] == emptyBefore[start]) {
+					if (start == 0) {
+						fits = j == 1;
+					} else {
+						fits = !bit(lineFilled, start - 1) && prefix[(j - 1) * width + start - 1];
+					}
+				}
+				prefix[j * width + i] = fits;
+			}
+		}
+		if (!prefix[k * width + n]) {
+			return -1;
+		}
+
+		// suffix[j][i]: cells i to n - 1 can hold hints j to k - 1
+		int suffixWidth = n + 2;
+		for (j = k; j >= 0; j--) {
+			int length = j < k ? hints[j] : 0;
+			suffix[j * suffixWidth + n] = j == k;
+			for (i = n - 1; i >= 0; i--) {
+				// cell i is left empty
+				boolean fits = suffix[j * suffixWidth + i + 1] && !bit(lineFilled, i);
+				// or hint j starts at cell i
+				int end = i + length;
+				if (!fits && j < k && end <= n && emptyBefore[end] == emptyBefore[i]) {
+					if (end == n) {
+						fits = j == k - 1;
+					} else {
+						fits = !bit(lineFilled, end) && suffix[(j + 1) * suffixWidth + end + 1];
+					}
+				}
+				suffix[j * suffixWidth + i] = fits;
+			}
+		}
+
+		// count the valid placements of each hint covering each cell
+		for (i = 0; i <= n; i++) {
+			cover[i] = 0;
+		}
+		for (j = 0; j < k; j++) {
+			int length = hints[j];
+			int start;
+			for (start = 0; start + length <= n; start++) {
+				int end = start + length;
+				if (emptyBefore[end] != emptyBefore[start]) {
+					continue;
+				}
+				boolean left = start == 0 ? j == 0
+						: !bit(lineFilled, start - 1) && prefix[j * width + start - 1];
+				boolean right = end == n ? j == k - 1
+						: !bit(lineFilled, end) && suffix[(j + 1) * suffixWidth + end + 1];
+				if (left && right) {
+					cover[start]++;
+					cover[end]--;
+				}
+			}
+		}
+
+		// find the cells that can only be one value
+		int found = 0;
+		int covered = 0;
+		for (i = 0; i < n; i++) {
+			covered += cover[i];
+			boolean canFill = covered > 0;
+			boolean canEmpty = !bit(lineFilled, i);
+			if (canEmpty) {
+				// the cell can be empty if the hints fit on both sides of it
+				canEmpty = false;
+				for (j = 0; j <= k && !canEmpty; j++) {
+					canEmpty = prefix[j * width + i] && suffix[j * suffixWidth + i + 1];
+				}
+			}
+			if (!canFill && !canEmpty) {
+				return -1;
+			}
+			int column = line < n ? i : line - n;
+			int row = line < n ? line : i;
+			boolean known = bit(lineFilled, i) || bit(lineEmpty, i);
+			if (known || (canFill && canEmpty)) {
+				continue;
+			}
+			if (canFill) {
+				setKnown(knownFilled, column, row);
+			} else {
+				setKnown(knownEmpty, column, row);
+			}
+			// remember which cells changed so the crossing lines get queued
+			lineChanged[i >>> 6] |= 1L << i;
+			found++;
+		}
+		knownCells += found;
+		return found;
+	}
+
+	/**
+	 * Reads one bit of a mask
+	 *
+	 * @param mask  The packed mask
+	 * @param index The bit to read
+	 * @return Whether the bit is set
+	 */
+	private static boolean bit(long[] mask, int index) {
+		return ((mask[index >>> 6] >>> index) & 1L) != 0;
+	}
+
+	/**
+	 * Checks whether a cell is known to be true/1
+	 *
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 * @return Whether the cell is known true
+	 */
+	private boolean isFilled(int column, int row) {
+		return ((knownFilled[row * rowWords + (column >>> 6)] >>> column) & 1L) != 0;
+	}
+
+	/**
+	 * Checks whether a cell is known to be false/0
+	 *
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 * @return Whether the cell is known false
+	 */
+	private boolean isEmpty(int column, int row) {
+		return ((knownEmpty[row * rowWords + (column >>> 6)] >>> column) & 1L) != 0;
+	}
+
+	/**
+	 * Checks whether a cell has been found
+	 *
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 * @return Whether the cell is known
+	 */
+	private boolean isKnown(int column, int row) {
+		return isFilled(column, row) || isEmpty(column, row);
+	}
+
+	/**
+	 * Marks a cell as known in one of the known masks
+	 *
+	 * @param mask   The known mask to change
+	 * @param column The cell's column
+	 * @param row    The cell's row
+	 */
+	private void setKnown(long[] mask, int column, int row) {
+		mask[row * rowWords + (column >>> 6)] |= 1L << column;
+	}
+}
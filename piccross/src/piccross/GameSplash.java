@@ -37,7 +37,7 @@ public class GameSplash extends JWindow {
 		// create a label to place splash screen image
 		JLabel label;
 		try {
-			label = new JLabel(new ImageIcon("images/loadingscreen.gif"));
+			label = new JLabel(GameAssets.icon("loadingscreen.gif"));
 		} catch (Exception e) {
 			// print error and no image will be displayed instead of selected image
 			e.printStackTrace();
@@ -11,13 +11,12 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
-import java.awt.GridBagConstraints;
-import java.awt.GridBagLayout;
-import java.awt.GridLayout;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
 import java.awt.Toolkit;
+import java.util.BitSet;
 
 import javax.swing.BorderFactory;
-import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
@@ -29,15 +28,11 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
 import javax.swing.JTextField;
-import javax.swing.JTextPane;
 import javax.swing.JWindow;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.border.Border;
-import javax.swing.text.SimpleAttributeSet;
-import javax.swing.text.StyleConstants;
-import javax.swing.text.StyledDocument;
 
 import java.awt.event.ActionListener;
 import java.awt.event.ItemListener;
@@ -53,8 +48,20 @@ import java.awt.event.ItemListener;
 public class GameView extends JFrame {
 	/** Required long value */
 	private static final long serialVersionUID = 1L;
-	/** A grey border for use on different elements */
-	private static Border greyBorder = BorderFactory.createMatteBorder(2, 2, 2, 2, new Color(70, 70, 70));
+	/** The largest board a custom game can have */
+	public static final int MAX_DIMENSION = GameBoard.MAX_DIMENSION;
+	/** The side of the grid at the default zoom for boards small enough to fit */
+	private static final int BOARD_SIZE = 500;
+	/** The smallest cell size at the default zoom, larger boards scroll */
+	private static final int DEFAULT_MIN_CELL = 12;
+	/** The smallest cell size when zooming out */
+	private static final int MIN_CELL = 4;
+	/** The largest cell size when zooming in */
+	private static final int MAX_CELL = 120;
+	/** The most lines kept in the history area */
+	private static final int HISTORY_LINES = 500;
+	/** The largest the viewport is made before it scrolls */
+	private static final Dimension MAX_VIEW = new Dimension(900, 640);
 	/** A blue border for use on different elements */
 	private static Border blueBorder = BorderFactory.createMatteBorder(3, 3, 3, 3, new Color(97, 197, 255));
 	/** A grey background color for use on different elements */
@@ -64,7 +71,11 @@ public class GameView extends JFrame {
 	/** This is the check box for marking */
 	private JCheckBox mark = new JCheckBox();
 	/** This is the history area, the text box in the control panel */
-	private JTextArea historyArea = new JTextArea();
+	private GameHistory historyArea = new GameHistory(HISTORY_LINES);
+	/** Whether history messages are also written to the console */
+	private boolean echo = true;
+	/** Writes the console messages without holding up the GUI, made when first used */
+	private GameLog console;
 	/** The panel that will contain the play area, hint area and mark check box */
 	private static JPanel playArea;
 	/**
@@ -76,14 +87,14 @@ public class GameView extends JFrame {
 	private JTextField score;
 	/** The text box for the time */
 	private JTextField time;
-	/** The array that holds all the play buttons */
-	private JButton[][] playButtons;
-	/** The array that holds all the hint areas */
-	private JPanel[] hintAreas;
-	/** The array that holds the hint texts for the top hints */
-	private JTextPane[] hintTextTop;
-	/** The array that holds the hint texts/labels for the side hints */
-	private JLabel[] hintTextSide;
+	/** The playing grid, painted as one component */
+	private GameCanvas board;
+	/** The hints above the grid */
+	private GameHints hintsTop;
+	/** The hints beside the grid */
+	private GameHints hintsSide;
+	/** The viewport the grid scrolls in, with the hints as headers */
+	private JScrollPane boardScroll;
 	/** Keeps track of the board dimension */
 	private int dimension = 5;
 
@@ -108,7 +119,8 @@ public class GameView extends JFrame {
 		// set attributes for main window
 		setSize(987, 710);
 		getContentPane().setBackground(greyBG);
-		setResizable(false);
+		// resizable so a large board's viewport can be made bigger
+		setResizable(true);
 
 		// hides window if they close from the window button
 		addWindowListener(new java.awt.event.WindowAdapter() {
@@ -124,7 +136,7 @@ public class GameView extends JFrame {
 		// set the image for application
 		ImageIcon miniLogo;
 		try {
-			miniLogo = new ImageIcon("images/logomini.png");
+			miniLogo = GameAssets.icon("logomini.png");
 			setIconImage(miniLogo.getImage());
 		} catch (Exception e) {
 			// print error and default image will be displayed
@@ -143,11 +155,17 @@ public class GameView extends JFrame {
 		// add components
 		add(controlPanel, BorderLayout.WEST);
 		add(playArea, BorderLayout.CENTER);
+		// shown by showGame once the hints are written
+	}
 
-		// set visible as true and center in the screen
-		setVisible(true);
-		setLocationRelativeTo(null);
+	/**
+	 * Sizes the window to the game, centers it in the screen and shows it
+	 */
+	public void showGame() {
 		pack();
+		fitScreen();
+		setLocationRelativeTo(null);
+		setVisible(true);
 	}
 	
 	/**
@@ -183,6 +201,9 @@ public class GameView extends JFrame {
 		add(playArea, BorderLayout.CENTER);
 		revalidate();
 		repaint();
+		// fit the window to the new board
+		pack();
+		fitScreen();
 	}
 
 	/**
@@ -204,25 +225,25 @@ public class GameView extends JFrame {
 		 * newGameIcon = new ImageIcon(); }
 		 */
 		try {
-			solutionIcon = new ImageIcon("images/solution.gif");
+			solutionIcon = GameAssets.icon("solution.gif");
 		} catch (Exception e) { // print error and no image will be displayed instead of selected image
 			e.printStackTrace();
 			solutionIcon = new ImageIcon();
 		}
 		try {
-			exitIcon = new ImageIcon("images/exit.gif");
+			exitIcon = GameAssets.icon("exit.gif");
 		} catch (Exception e) { // print error and no image will be displayed instead of selected image
 			e.printStackTrace();
 			exitIcon = new ImageIcon();
 		}
 		try {
-			coloursIcon = new ImageIcon("images/colours.gif");
+			coloursIcon = GameAssets.icon("colours.gif");
 		} catch (Exception e) { // print error and no image will be displayed instead of selected image
 			e.printStackTrace();
 			coloursIcon = new ImageIcon();
 		}
 		try {
-			aboutIcon = new ImageIcon("images/about.gif");
+			aboutIcon = GameAssets.icon("about.gif");
 		} catch (Exception e) { // print error and no image will be displayed instead of selected image
 			e.printStackTrace();
 			aboutIcon = new ImageIcon();
@@ -235,6 +256,9 @@ public class GameView extends JFrame {
 		// 3 = exit
 		// 4 = colours
 		// 5 = about
+		// 6 = custom size grid
+		// 7 = zoom in
+		// 8 = zoom out
 
 		// Game menu
 		JMenu gameMenu = new JMenu("Game");
@@ -255,6 +279,10 @@ public class GameView extends JFrame {
 		newGameMenu.add(newGame10);
 		newGame10.setActionCommand("110");
 		newGame10.addActionListener(menuHandler);
+		JMenuItem newGameCustom = new JMenuItem("Custom Size...");
+		newGameMenu.add(newGameCustom);
+		newGameCustom.setActionCommand("6");
+		newGameCustom.addActionListener(menuHandler);
 
 		// add new game to game menu
 		gameMenu.add(newGameMenu);
@@ -276,6 +304,18 @@ public class GameView extends JFrame {
 		setJMenuBar(menuBar);
 		menuBar.add(gameMenu);
 
+		// create view menu, control and the mouse wheel also zooms
+		JMenu viewMenu = new JMenu("View");
+		JMenuItem zoomInItem = new JMenuItem("Zoom In");
+		viewMenu.add(zoomInItem);
+		zoomInItem.setActionCommand("7");
+		zoomInItem.addActionListener(menuHandler);
+		JMenuItem zoomOutItem = new JMenuItem("Zoom Out");
+		viewMenu.add(zoomOutItem);
+		zoomOutItem.setActionCommand("8");
+		zoomOutItem.addActionListener(menuHandler);
+		menuBar.add(viewMenu);
+
 		// create help menu
 		JMenu helpMenu = new JMenu("Help");
 
@@ -302,92 +342,87 @@ public class GameView extends JFrame {
 	 * @param message The string to be added to the history area
 	 */
 	public void historyAreaMessage(String message) {
+		// the history area shows the messages added together on the next repaint
 		historyArea.append(message);
-		historyArea.setCaretPosition(historyArea.getDocument().getLength());
 	}
 
 	/**
-	 * Changes a buttons colour
+	 * Writes a message to the console unless the console is turned off, the
+	 * message is written on another thread so the GUI does not wait
+	 * 
+	 * @param message The message, a line is added after it
+	 */
+	public void echo(String message) {
+		if (!echo) {
+			return;
+		}
+		if (console == null) {
+			console = new GameLog("piccross-console");
+		}
+		console.log(message);
+	}
+
+	/**
+	 * Waits a moment for the console messages to be written, used before exiting
+	 */
+	public void flushEcho() {
+		if (console != null) {
+			console.flush(500);
+		}
+	}
+
+	/**
+	 * Turns writing messages to the console on or off
 	 * 
-	 * @param column The button's column dimension
-	 * @param row    The button's row dimension
+	 * @param on Whether messages are written to the console
+	 */
+	public void setEcho(boolean on) {
+		echo = on;
+	}
+
+	/**
+	 * Changes a cells colour, only that cell is repainted
+	 * 
+	 * @param column The cell's column dimension
+	 * @param row    The cell's row dimension
 	 * @param colour The colour to change to
 	 */
 	public void changeButton(int column, int row, Color colour) {
-		// change the indicated button to the indicated colour
-		playButtons[column][row].setBackground(colour);
+		// change the indicated cell to the indicated colour
+		board.setCell(column, row, colour);
+	}
+
+	/**
+	 * Changes the colour of several cells, they are repainted together
+	 * 
+	 * @param cells  The cells as row * dimension + column
+	 * @param colour The colour to change to
+	 */
+	public void changeButtons(BitSet cells, Color colour) {
+		board.setCells(cells, colour);
 	}
 
 	/**
-	 * Writes the hints in the hint areas
+	 * Writes the hints in the hint areas, lines with fewer hints are padded so
+	 * the hints line up against the board
 	 * 
 	 * @param hintsTop  The hints to be written in the top hint areas
 	 * @param hintsSide The hints to be written in the side hint areas
 	 */
-	public void writeHints(Integer[][] hintsTop, Integer[][] hintsSide) {
-		int i = 0;
-		int j = 0;
-		String hint;
-
-		// loop to write hints in the top hint areas
-		for (i = 0; i < dimension; i++) {
-			// reset hint
-			hint = "";
-			for (j = 0; j < 6; j++) {
-				// if the hint is not 0, store at end of string
-				if (hintsTop[i][j] != 0) {
-					hint = hint + hintsTop[i][j].toString() + "\n";
-				} else {
-					// otherwise, hint is 0, put an empty space at the beginning of string
-					hint = " \n" + hint;
-				}
-			}
-			// store all the hints in the corresponding hint label for hint area
-			hintTextTop[i].setText(hint);
-			hintTextTop[i].setBackground(lightGreyBG);
-			hintTextTop[i].setHighlighter(null);
-			hintTextTop[i].setEditable(false);
-			// center the hints
-			StyledDocument doc = hintTextTop[i].getStyledDocument();
-			SimpleAttributeSet center = new SimpleAttributeSet();
-			StyleConstants.setAlignment(center, StyleConstants.ALIGN_CENTER);
-			doc.setParagraphAttributes(0, doc.getLength(), center, false);
-		}
-
-		// loop to write hints in the side hint areas
-		for (i = 0; i < dimension; i++) {
-			// reset hint
-			hint = "";
-			for (j = 0; j < 6; j++) {
-				// if the hint is not 0, store at end of string
-				if (hintsSide[i][j] != 0) {
-					hint = hint + "   " + hintsSide[i][j].toString();
-				} else {
-					// otherwise, hint is 0, put an empty space at the beginning of string
-					hint = "   " + hint;
-				}
-			}
-			// store all the hints in the corresponding hint label for hint area
-			hint = hint + " ";
-			hintTextSide[i].setText(hint);
-			hintTextSide[i].setBackground(lightGreyBG);
-		}
+	public void writeHints(int[][] hintsTop, int[][] hintsSide) {
+		// the hint areas pad and paint the hints themselves
+		this.hintsTop.setHints(hintsTop);
+		this.hintsSide.setHints(hintsSide);
 	}
 
 	/**
 	 * Resets the history area and score
 	 */
 	public void reset() {
-		// set each button colour to white
-		int row = dimension;
-		int column = dimension;
-		for (row = 0; row < dimension; row++) {
-			for (column = 0; column < dimension; column++) {
-				playButtons[column][row].setBackground(Color.WHITE);
-			}
-		}
+		// set each cell colour to white
+		board.clear();
 		mark.setSelected(false);
-		historyArea.setText("");
+		historyArea.clear();
 
 		updateScore(0);
 	}
@@ -478,9 +513,7 @@ public class GameView extends JFrame {
 		time.setHorizontalAlignment(JTextField.CENTER);
 
 		// configure history area text box
-		historyArea.setEditable(false);
 		historyArea.setFont(controlPanel.getFont().deriveFont(18f));
-		historyArea.setText("");
 		// historyArea.setBorder(blueBorder);
 		historyArea.setBackground(lightGreyBG);
 		historyArea.setForeground(Color.white);
@@ -512,7 +545,7 @@ public class GameView extends JFrame {
 		JLabel logo = new JLabel();
 		ImageIcon logoImg;
 		try {
-			logoImg = new ImageIcon("images/logocpl.png");
+			logoImg = GameAssets.icon("logocpl.png");
 			logo.setIcon(logoImg);
 			logo.setPreferredSize(new Dimension(300, 100));
 		} catch (Exception e) {
@@ -565,7 +598,7 @@ public class GameView extends JFrame {
 		// if perfect score show victory else defeat
 		if (score == dimension * dimension) {
 			try {
-				victory = new ImageIcon("images/gamepicwinner.png");
+				victory = GameAssets.icon("gamepicwinner.png");
 				JOptionPane.showMessageDialog(null, null, "Victory!", JOptionPane.INFORMATION_MESSAGE, victory);
 			} catch (Exception e) { // print error and no image will be displayed instead of selected image
 				e.printStackTrace();
@@ -573,7 +606,7 @@ public class GameView extends JFrame {
 			}
 		} else {
 			try {
-				failure = new ImageIcon("images/gamepicend.png");
+				failure = GameAssets.icon("gamepicend.png");
 				JOptionPane.showMessageDialog(null, null, "Defeat!", JOptionPane.INFORMATION_MESSAGE, failure);
 			} catch (Exception e) { // print error and no image will be displayed instead of selected image
 				e.printStackTrace();
@@ -591,7 +624,7 @@ public class GameView extends JFrame {
 		ImageIcon about;
 
 		try {
-			about = new ImageIcon("images/piccross.png");
+			about = GameAssets.icon("piccross.png");
 			JOptionPane.showMessageDialog(null, null, "About", JOptionPane.INFORMATION_MESSAGE, about);
 		} catch (Exception e) { // print error and no image will be displayed instead of selected image
 			e.printStackTrace();
@@ -601,34 +634,21 @@ public class GameView extends JFrame {
 
 	/**
 	 * Creates and sets up the mark check box and playing area elements, including
-	 * the buttons and hint area
+	 * the playing grid and hint areas. The grid scrolls in a viewport with the
+	 * hints as its headers so they stay lined up with the visible cells
 	 */
 	public void setUpPlayingArea(ActionListener playButtonHandler, ItemListener checkBoxHandler) {
-		// array for all the button names/action codes
-		String[] buttonNames;
-		// create an array for all the buttons, size of grid
-		playButtons = new JButton[dimension][dimension];
-		// create a panel to add the buttons to
-		JPanel buttonGrid = new JPanel();
-		buttonGrid.setLayout(new GridLayout(dimension, dimension));
-		// create arrays for the hint areas
-		hintAreas = new JPanel[dimension + dimension];
-		hintTextTop = new JTextPane[dimension];
-		hintTextSide = new JLabel[dimension];
-		// variables for grid size, and looping
-		int i = 0;
-		int row = 0;
-		int column = 0;
+		// boards that fit keep the old size, larger ones scroll
+		int cellSize = Math.max(DEFAULT_MIN_CELL, BOARD_SIZE / dimension);
+		// create the grid, clicks on a cell reach the handler as column,row
+		board = new GameCanvas(dimension, cellSize, playButtonHandler);
+		hintsTop = new GameHints(true, cellSize, controlPanel.getFont());
+		hintsSide = new GameHints(false, cellSize, controlPanel.getFont());
 
 		// set the JPanel for the play area attributes
-		playArea.setLayout(new GridBagLayout());
+		playArea.setLayout(new BorderLayout());
 		playArea.setBackground(greyBG);
 		playArea.setBorder(BorderFactory.createEmptyBorder());
-		// gridbaglayout constraints
-		GridBagConstraints c = new GridBagConstraints();
-
-		// set amount of names
-		buttonNames = new String[dimension * dimension];
 
 		// set up the panel for the mark box
 		JPanel markPanel = new JPanel();
@@ -644,170 +664,93 @@ public class GameView extends JFrame {
 		markPanel.add(mark);
 		markPanel.setBackground(greyBG);
 
-		// add mark panel to playing area
-		c.gridx = 1;
-		c.gridy = 1;
-		playArea.add(markPanel, c);
-
-		// loop to set the hint area
-		for (i = 0; i < (dimension * 2); i++) {
-			// create a panel
-			JPanel hintArea = new JPanel();
-
-			// set attributes
-			hintArea.setBackground(lightGreyBG);
-
-			// set positioning in play area
-			// if top row
-			if (i < dimension) {
-				hintArea.setBorder(BorderFactory.createMatteBorder(2, 2, 0, 2, greyBG));
-				hintArea.setPreferredSize(new Dimension((500 / dimension), 150));
-				hintArea.setLayout(new BoxLayout(hintArea, BoxLayout.PAGE_AXIS));
-
-				c.gridy = 0; // doesnt change
-				c.gridx = i + 2; // moves over one
-
-				// size
-				c.gridheight = 2;
-				c.gridwidth = 1;
-			} else {
-				// if vertical/side hint area
-				hintArea.setBorder(BorderFactory.createMatteBorder(2, 2, 2, 0, greyBG));
-				hintArea.setPreferredSize(new Dimension(150, (500 / dimension)));
-				hintArea.setLayout(new BorderLayout());
-
-				c.gridx = 0; // doesnt change
-				c.gridy = i + 2 - dimension; // moves down one
-
-				// size
-				c.gridheight = 1;
-				c.gridwidth = 2;
-			}
-			c.fill = GridBagConstraints.BOTH;
-
-			// add text and change postioning depending on top or side
-			if (i < dimension) {
-				// top hints
-				// create and add a text panel to top areas area
-				JTextPane hintLabel = new JTextPane();
-				hintLabel.setFont(controlPanel.getFont().deriveFont(18f));
-				hintLabel.setForeground(Color.WHITE);
-
-				hintLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-				hintLabel.setAlignmentY(Component.BOTTOM_ALIGNMENT);
-
-				// add to array
-				hintTextTop[i] = hintLabel;
-				// add to JPanel hintArea
-				hintArea.add(hintTextTop[i]);
+		// the grid scrolls, the hints scroll with it along their own direction
+		boardScroll = new JScrollPane(board);
+		boardScroll.setColumnHeaderView(hintsTop);
+		boardScroll.setRowHeaderView(hintsSide);
+		// the mark box sits in the corner between the hints
+		boardScroll.setCorner(ScrollPaneConstants.UPPER_LEFT_CORNER, markPanel);
+		boardScroll.setBorder(BorderFactory.createEmptyBorder());
+		boardScroll.getViewport().setBackground(greyBG);
+		boardScroll.getVerticalScrollBar().setUnitIncrement(cellSize);
+		boardScroll.getHorizontalScrollBar().setUnitIncrement(cellSize);
+
+		// control and the mouse wheel zooms
+		board.addMouseWheelListener(e -> {
+			if (e.isControlDown()) {
+				zoom(e.getWheelRotation() < 0);
 			} else {
-				// side hints
-				// create and add a text panel to top areas area
-				JLabel hintLabel = new JLabel("", JLabel.RIGHT);
-				hintLabel.setFont(controlPanel.getFont().deriveFont(18f));
-				hintLabel.setForeground(Color.WHITE);
-
-				hintLabel.setAlignmentX(Component.RIGHT_ALIGNMENT);
-				hintLabel.setAlignmentY(Component.CENTER_ALIGNMENT);
-
-				// add to array
-				hintTextSide[i - dimension] = hintLabel;
-				// add to JPanel hintArea
-				hintArea.add(hintTextSide[i - dimension], BorderLayout.EAST);
+				// pass normal scrolling on to the viewport
+				boardScroll.dispatchEvent(SwingUtilities.convertMouseEvent(board, e, boardScroll));
 			}
+		});
+		fitViewport();
 
-			// add to array list
-			hintAreas[i] = hintArea;
-
-			// add to play area
-			playArea.add(hintAreas[i], c);
-		}
-
-		// loop for grid size and create buttons
-		for (i = 0; i < (dimension * dimension); i++) {
-			// reset column after reaches gridSize
-			if (column >= dimension) {
-				column = 0;
-				row++;
-			}
+		// add to play area
+		playArea.add(boardScroll, BorderLayout.CENTER);
+	}
 
-			// create button name/action
-			buttonNames[i] = (column + 1) + "," + (row + 1);
-
-			// create and add button to array list
-			playButtons[column][row] = createButton(buttonNames[i], playButtonHandler);
-
-			// thicker border for outside edge
-			if (column == 0 && row == 0) {
-				// top left corner
-				playButtons[column][row].setBorder(BorderFactory.createMatteBorder(4, 4, 2, 2, new Color(70, 70, 70)));
-			} else if (column == dimension - 1 && row == 0) {
-				// top right corner
-				playButtons[column][row].setBorder(BorderFactory.createMatteBorder(4, 2, 2, 4, new Color(70, 70, 70)));
-			} else if (column == 0 && row == dimension - 1) {
-				// bottom left corner
-				playButtons[column][row].setBorder(BorderFactory.createMatteBorder(2, 4, 4, 2, new Color(70, 70, 70)));
-			} else if (column == dimension - 1 && row == dimension - 1) {
-				// bottom right corner
-				playButtons[column][row].setBorder(BorderFactory.createMatteBorder(2, 2, 4, 4, new Color(70, 70, 70)));
-			} else if (column == 0) {
-				// left edge
-				playButtons[column][row].setBorder(BorderFactory.createMatteBorder(2, 4, 2, 2, new Color(70, 70, 70)));
-			} else if (row == 0) {
-				// top edge
-				playButtons[column][row].setBorder(BorderFactory.createMatteBorder(4, 2, 2, 2, new Color(70, 70, 70)));
-			} else if (column == dimension - 1) {
-				// right edge
-				playButtons[column][row].setBorder(BorderFactory.createMatteBorder(2, 2, 2, 4, new Color(70, 70, 70)));
-			} else if (row == dimension - 1) {
-				// bottom edge
-				playButtons[column][row].setBorder(BorderFactory.createMatteBorder(2, 2, 4, 2, new Color(70, 70, 70)));
-			}
+	/**
+	 * Zooms the grid and hints in or out by one step
+	 * 
+	 * @param in Whether to zoom in, otherwise out
+	 */
+	public void zoom(boolean in) {
+		int cellSize = board.getCellSize();
+		int step = Math.max(1, cellSize / 5);
+		cellSize = Math.max(MIN_CELL, Math.min(MAX_CELL, in ? cellSize + step : cellSize - step));
+		board.setCellSize(cellSize);
+		hintsTop.setCellSize(cellSize);
+		hintsSide.setCellSize(cellSize);
+		boardScroll.getVerticalScrollBar().setUnitIncrement(cellSize);
+		boardScroll.getHorizontalScrollBar().setUnitIncrement(cellSize);
+		boardScroll.revalidate();
+		boardScroll.repaint();
+	}
 
-			// add to panel
-			buttonGrid.add(playButtons[column][row]);
+	/**
+	 * Sizes the viewport to the grid, up to the largest viewport
+	 */
+	private void fitViewport() {
+		Dimension grid = board.getPreferredSize();
+		boardScroll.getViewport().setPreferredSize(
+				new Dimension(Math.min(grid.width, MAX_VIEW.width), Math.min(grid.height, MAX_VIEW.height)));
+	}
 
-			column++;
+	/**
+	 * Shrinks the window to the screen if the hints of a large board made it too
+	 * big, the viewport scrolls what does not fit
+	 */
+	private void fitScreen() {
+		Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+		if (getWidth() > screen.width || getHeight() > screen.height) {
+			setSize(Math.min(getWidth(), screen.width), Math.min(getHeight(), screen.height));
+			setLocationRelativeTo(null);
 		}
-
-		// add button grid to play area layout
-		// set positions
-		c.gridx = 2;
-		c.gridy = 2;
-
-		// size
-		c.gridheight = dimension;
-		c.gridwidth = dimension;
-		c.fill = GridBagConstraints.BOTH;
-
-		// add to play area
-		playArea.add(buttonGrid, c);
 	}
 
 	/**
-	 * Creates a button and sets it up for actions
+	 * Asks the user for the dimension of a custom game
 	 * 
-	 * @param name          The name of the button, or the position
-	 * @param buttonHandler The action listener/event handler for the button
-	 * @return Returns the created button
+	 * @return The dimension, or 0 if cancelled or not valid
 	 */
-	public JButton createButton(String name, ActionListener buttonHandler) {
-		// create button
-		JButton button = new JButton();
-
-		// set attributes
-		button.setPreferredSize(new Dimension((500 / dimension), (500 / dimension)));
-		button.setFocusable(false);
-		button.setBackground(Color.white);
-		button.setBorder(greyBorder);
-		// button.setText(name);
-
-		// set the action
-		button.setActionCommand(name);
-		button.addActionListener(buttonHandler);
-
-		// return the created button
-		return button;
+	public int askDimension() {
+		String answer = JOptionPane.showInputDialog(this, "Board size (1 to " + MAX_DIMENSION + ")",
+				"Custom Game", JOptionPane.QUESTION_MESSAGE);
+		if (answer == null) {
+			return 0;
+		}
+		try {
+			int size = Integer.parseInt(answer.trim());
+			if (size >= 1 && size <= MAX_DIMENSION) {
+				return size;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		JOptionPane.showMessageDialog(this, "The size must be a number from 1 to " + MAX_DIMENSION, "Custom Game",
+				JOptionPane.ERROR_MESSAGE);
+		return 0;
 	}
 
 	/**
@@ -823,7 +766,8 @@ public class GameView extends JFrame {
 		private static final long serialVersionUID = 1L;
 
 		/**
-		 * Displays a splash screen for 5 seconds
+		 * Displays the splash screen until closeSplashWindow is called, call on the
+		 * event thread
 		 */
 		public void showSplashWindow() {
 			// create panel that will hold image
@@ -832,7 +776,7 @@ public class GameView extends JFrame {
 			// create a label to place splash screen image
 			JLabel label;
 			try {
-				label = new JLabel(new ImageIcon("images/loadingscreen.gif"));
+				label = new JLabel(GameAssets.icon("loadingscreen.gif"));
 			} catch (Exception e) {
 				// print error and no image will be displayed instead of selected image
 				e.printStackTrace();
@@ -855,19 +799,14 @@ public class GameView extends JFrame {
 			// replace the window content with our image in the panel
 			setContentPane(splashPanel);
 
-			// ensure splash window is visible
+			// ensure splash window is visible, it stays up while the game is made
 			setVisible(true);
+		}
 
-			// keep the screen up for 5 seconds
-			try {
-				// splash screen displays for 5000 milliseconds
-				Thread.sleep(5000);
-			} catch (InterruptedException e) {
-				// print error if one is caught
-				e.printStackTrace();
-				System.out.println("Interrupted Exception " + e);
-			}
-
+		/**
+		 * Closes the splash screen, used once the game window shows
+		 */
+		public void closeSplashWindow() {
 			// release resources
 			dispose();
 		}
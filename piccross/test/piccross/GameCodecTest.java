@@ -0,0 +1,93 @@
+/*
+ * File name: GameCodecTest.java
+ * Author: Mostapha A
+ * Purpose: Checks the configuration strings and packed boards GameCodec reads
+ * Class list: GameCodec.java, GameCodecTest.java
+ */
+
+package piccross;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GameCodecTest class checks that boards survive both string forms and the
+ * packed form, and that a configuration from a client cannot make the codec
+ * build a board larger than the game allows
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameCodec.java
+ * @since Java 16
+ */
+class GameCodecTest {
+
+	/**
+	 * Makes a board with a pattern that is not the same across rows or columns
+	 *
+	 * @param dimension The board dimension
+	 * @return The board
+	 */
+	private static GameBoard pattern(int dimension) {
+		GameBoard board = new GameBoard(dimension);
+		int row;
+		int column;
+		for (row = 0; row < dimension; row++) {
+			for (column = 0; column < dimension; column++) {
+				board.setSolution(column, row, (row * 31 + column * 7) % 5 < 2);
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * The largest board comes back the same from every form
+	 */
+	@Test
+	void largestBoardRoundTrips() {
+		GameBoard board = pattern(GameBoard.MAX_DIMENSION);
+		String text = GameCodec.encode(board);
+		assertEquals(text, GameCodec.encode(GameCodec.decode(text)));
+		assertEquals(text, GameCodec.encode(GameCodec.decode(GameCodec.encodeCompact(board))));
+		assertArrayEquals(GameCodec.toBytes(board), GameCodec.toBytes(GameCodec.fromBytes(GameCodec.toBytes(board))));
+	}
+
+	/**
+	 * A compact form whose cells overflow an int to 0 is turned away instead of
+	 * making a 65536 board
+	 */
+	@Test
+	void compactOverflowIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> GameCodec.decode("65536:"));
+		assertThrows(IllegalArgumentException.class, () -> GameCodec.decode("2147483647:"));
+	}
+
+	/**
+	 * Every form one larger than the largest board is turned away, even when it
+	 * has the right length
+	 */
+	@Test
+	void oversizedDimensionIsRejected() {
+		GameBoard board = pattern(GameBoard.MAX_DIMENSION + 1);
+		String text = GameCodec.encode(board);
+		String compact = GameCodec.encodeCompact(board);
+		byte[] packed = GameCodec.toBytes(board);
+		assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(text));
+		assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(compact));
+		assertThrows(IllegalArgumentException.class, () -> GameCodec.fromBytes(packed));
+	}
+
+	/**
+	 * The largest dimension two bytes can hold is turned away before its cells
+	 * are worked out
+	 */
+	@Test
+	void packedOverflowIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> GameCodec.fromBytes(new byte[] { (byte) 0xFF, (byte) 0xFF }));
+		assertThrows(IllegalArgumentException.class,
+				() -> GameCodec.fromBytes(new byte[] { (byte) 0x80, 0, 0, 0 }));
+	}
+}
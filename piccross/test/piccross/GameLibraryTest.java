@@ -0,0 +1,101 @@
+/*
+ * File name: GameLibraryTest.java
+ * Author: Mostapha A
+ * Purpose: Checks that the puzzle library keeps puzzles apart and within its bounds
+ * Class list: GameLibrary.java, GameLibraryTest.java
+ */
+
+package piccross;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GameLibraryTest class checks that two different puzzles with the same hash
+ * are both kept under their own ids, and that the library stays within the
+ * bytes it is given
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameLibrary.java
+ * @since Java 16
+ */
+class GameLibraryTest {
+
+	/**
+	 * Sets one row of a board from the bits of a long
+	 *
+	 * @param board The board
+	 * @param row   The row
+	 * @param word  The cells, bit i is column i
+	 */
+	private static void setRow(GameBoard board, int row, long word) {
+		int column;
+		for (column = 0; column < board.getDimension(); column++) {
+			board.setSolution(column, row, ((word >>> column) & 1L) == 1L);
+		}
+	}
+
+	/**
+	 * Works out GameCodec.hash up to, not including, the last row
+	 *
+	 * @param board A 64x64 board
+	 * @return The hash state before the last row is mixed in
+	 */
+	private static long stateBeforeLastRow(GameBoard board) {
+		long hash = 0xCBF29CE484222325L ^ board.getDimension();
+		int row;
+		for (row = 0; row < board.getDimension() - 1; row++) {
+			hash = (hash ^ board.getSolutionWord(row, 0)) * 0x9E3779B97F4A7C15L;
+			hash ^= hash >>> 32;
+		}
+		return hash;
+	}
+
+	/**
+	 * A puzzle made to have the hash of a kept one gets its own id, and each id
+	 * still gives back its own puzzle
+	 */
+	@Test
+	void collidingPuzzlesAreKeptApart() {
+		GameBoard real = new GameBoard(64);
+		setRow(real, 0, 0x0123456789ABCDEFL);
+		setRow(real, 63, 0x0F0F0F0F0F0F0F0FL);
+		GameBoard forged = new GameBoard(64);
+		setRow(forged, 0, 0x7EDCBA9876543210L);
+		// pick the last row so both boards reach the same state
+		setRow(forged, 63, stateBeforeLastRow(real) ^ 0x0F0F0F0F0F0F0F0FL ^ stateBeforeLastRow(forged));
+		assertEquals(GameCodec.hash(real), GameCodec.hash(forged));
+
+		GameLibrary library = new GameLibrary(16, 1L << 20);
+		GameLibrary.Puzzle first = library.add(forged);
+		GameLibrary.Puzzle second = library.add(real);
+		assertNotEquals(first.getHash(), second.getHash());
+		assertEquals(GameCodec.encode(forged), library.byHash(first.getHash()).getText());
+		assertEquals(GameCodec.encode(real), library.byHash(second.getHash()).getText());
+		assertSame(second, library.add(real));
+		assertEquals(2, library.size());
+	}
+
+	/**
+	 * Adding more large puzzles than the bytes allow removes the oldest ones
+	 */
+	@Test
+	void bytesAreBounded() {
+		long limit = 1L << 20;
+		GameLibrary library = new GameLibrary(1024, limit);
+		int i;
+		for (i = 0; i < 64; i++) {
+			GameBoard board = new GameBoard(GameBoard.MAX_DIMENSION);
+			board.setSolution(i, 0, true);
+			library.add(board);
+		}
+		assertTrue(library.bytes() <= limit);
+		assertTrue(library.evictions() > 0);
+		assertEquals(library.size(), 64 - library.evictions());
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * File name: GameModelTest.java
+ * Author: Mostapha A
+ * Purpose: Checks that the model's hash follows its current configuration
+ * Class list: GameModel.java, GameModelTest.java
+ */
+
+package piccross;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GameModelTest class checks the hash the client sends with a leaderboard
+ * request, which must be the hash of the game just made by New Game even
+ * though that only makes a configuration string
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameModel.java
+ * @since Java 16
+ */
+class GameModelTest {
+
+	/**
+	 * A model with no configuration has no hash
+	 */
+	@Test
+	void noConfigurationHasNoHash() {
+		assertEquals(0, new GameModel().getHash());
+	}
+
+	/**
+	 * New Game on a fresh model gives the hash of the string it made
+	 */
+	@Test
+	void newGameHashesTheNewString() {
+		GameModel model = new GameModel();
+		model.setDimension(5);
+		model.generateString();
+		assertEquals(GameCodec.hash(GameCodec.decode(model.getString())), model.getHash());
+	}
+
+	/**
+	 * New Game after a game was played gives the new game's hash, not the old
+	 * board's
+	 */
+	@Test
+	void newGameAfterPlayHashesTheNewString() {
+		GameModel model = new GameModel();
+		model.generateBoard("111,000,111");
+		long played = model.getHash();
+		model.setDimension(10);
+		model.generateString();
+		long made = GameCodec.hash(GameCodec.decode(model.getString()));
+		assertEquals(made, model.getHash());
+		assertEquals(played, GameCodec.hash(GameCodec.decode("111,000,111")));
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * File name: GameResultsTest.java
+ * Author: Mostapha A
+ * Purpose: Checks that the results file gives back the players it was given
+ * Class list: GameResults.java, GameResultsTest.java
+ */
+
+package piccross;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * GameResultsTest class checks that a long name is cut between characters and
+ * that a player has the same name before and after the file is opened again
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameResults.java
+ * @since Java 16
+ */
+class GameResultsTest {
+
+	/**
+	 * A name is never cut in the middle of a character
+	 */
+	@Test
+	void namesAreCutBetweenCharacters() {
+		// 9 three byte characters are 27 bytes, the tenth does not fit in 28
+		String name = "é" + "€".repeat(10);
+		String kept = GameResults.keptName(name);
+		assertEquals("é" + "€".repeat(8), kept);
+		assertEquals(kept, GameResults.keptName(kept));
+		assertEquals("short", GameResults.keptName("short"));
+	}
+
+	/**
+	 * The players read back after a restart are the players kept before it
+	 *
+	 * @param folder A new folder for the file
+	 * @throws IOException If the file cannot be used
+	 */
+	@Test
+	void playersSurviveARestart(@TempDir Path folder) throws IOException {
+		Path file = folder.resolve("results.dat");
+		String name = "a player with a long name €€";
+		GameResults results = new GameResults(file, result -> {
+		});
+		results.add(1, name, 30, 10, 5, 7);
+		results.add(1, name, 20, 12, 5, 7);
+		List<GameResults.Player> before = results.players();
+		results.close();
+
+		ArrayList<GameResults.Result> replayed = new ArrayList<GameResults.Result>();
+		GameResults reopened = new GameResults(file, replayed::add);
+		assertEquals(before, reopened.players());
+		assertEquals(1, reopened.players().size());
+		assertEquals(2, replayed.size());
+		assertEquals(GameResults.keptName(name), replayed.get(0).name());
+		assertEquals("a player with a long name ", replayed.get(0).name());
+		reopened.close();
+	}
+}
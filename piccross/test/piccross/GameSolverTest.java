@@ -0,0 +1,132 @@
+/*
+ * File name: GameSolverTest.java
+ * Author: Mostapha A
+ * Purpose: Checks how much one repair changes a board and that repairing ends
+ * Class list: GameSolver.java, GameSolverTest.java
+ */
+
+package piccross;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GameSolverTest class checks the bound on the cells one repair fills in a row,
+ * that small boards still get one cell a row, and that solving and repairing
+ * reaches a board with one answer in a few passes even at the largest size
+ *
+ * @author mos
+ * @version 1.0
+ * @see piccross package, GameSolver.java
+ * @since Java 16
+ */
+class GameSolverTest {
+
+	/**
+	 * Makes a board with about half its cells true
+	 *
+	 * @param dimension The board dimension
+	 * @param seed      The seed of the cells
+	 * @return The board
+	 */
+	private static GameBoard random(int dimension, long seed) {
+		Random random = new Random(seed);
+		GameBoard board = new GameBoard(dimension);
+		int row;
+		int column;
+		for (row = 0; row < dimension; row++) {
+			for (column = 0; column < dimension; column++) {
+				board.setSolution(column, row, random.nextBoolean());
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Counts the true cells of a row
+	 *
+	 * @param board The board
+	 * @param row   The row
+	 * @return The true cells
+	 */
+	private static int filled(GameBoard board, int row) {
+		int count = 0;
+		int column;
+		for (column = 0; column < board.getDimension(); column++) {
+			count += board.getSolution(column, row);
+		}
+		return count;
+	}
+
+	/**
+	 * The share is at least one and at most half the candidates, and is one for
+	 * every board under 20
+	 */
+	@Test
+	void shareIsBounded() {
+		int dimension;
+		int candidates;
+		for (dimension = 1; dimension <= GameBoard.MAX_DIMENSION; dimension++) {
+			for (candidates = 1; candidates <= dimension; candidates++) {
+				int share = GameSolver.repairShare(candidates, dimension);
+				assertTrue(share >= 1);
+				assertTrue(share <= Math.max(1, candidates / 2));
+				if (dimension < 20) {
+					assertEquals(1, share);
+				}
+			}
+		}
+		// a full row of the largest board gets half
+		assertEquals(100, GameSolver.repairShare(200, 200));
+	}
+
+	/**
+	 * On a small board one repair fills one false cell in each unsolved row and
+	 * never empties a cell
+	 */
+	@Test
+	void smallBoardsGetOneCellARow() {
+		GameBoard board = random(10, 3);
+		GameSolver solver = new GameSolver(10);
+		int[] before = new int[10];
+		int row;
+		for (row = 0; row < 10; row++) {
+			before[row] = filled(board, row);
+		}
+		if (!solver.solve(board)) {
+			int filled = solver.repair(board);
+			assertTrue(filled > 0);
+			int changed = 0;
+			for (row = 0; row < 10; row++) {
+				int added = filled(board, row) - before[row];
+				assertTrue(added == 0 || added == 1);
+				changed += added;
+			}
+			assertEquals(filled, changed);
+		}
+	}
+
+	/**
+	 * Solving and repairing ends with one answer at every size, and the largest
+	 * board needs few passes because each repair fills more of a row
+	 */
+	@Test
+	void repairingEndsWithOneAnswer() {
+		int[] dimensions = { 5, 10, 50, GameBoard.MAX_DIMENSION };
+		for (int dimension : dimensions) {
+			GameBoard board = random(dimension, dimension);
+			GameSolver solver = new GameSolver(dimension);
+			int passes = 0;
+			while (!solver.solve(board)) {
+				assertTrue(solver.repair(board) > 0);
+				passes++;
+			}
+			// one cell a row took 5 passes at 50 and 31 at 200
+			assertTrue(passes <= 4, dimension + "x" + dimension + " took " + passes + " passes");
+		}
+	}
+}